@@ -0,0 +1,25 @@
+package com.smartcustom.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基准测试公共方法
+ *
+ * @author SmartCustom Team
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 基准测试不加载logback-spring.xml，logback默认输出DEBUG日志，这里调回INFO，
+     * 避免控制台输出计入测量结果
+     */
+    static void quietLogging() {
+        Logger root = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+    }
+}
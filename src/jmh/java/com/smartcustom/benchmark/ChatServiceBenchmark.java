@@ -0,0 +1,131 @@
+package com.smartcustom.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.metrics.ChatMetrics;
+import com.smartcustom.metrics.TokenUsageTracker;
+import com.smartcustom.model.dto.ChatRequest;
+import com.smartcustom.model.dto.ChatResponse;
+import com.smartcustom.service.impl.ChatServiceImpl;
+import com.smartcustom.service.impl.SessionWriteBehind;
+import com.smartcustom.service.impl.ToolManagerImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天流程基准测试
+ *
+ * 模型替换为直接返回固定回复的桩实现，测量的是会话、记忆、Advisor链、指标和响应组装本身的开销。
+ * 会话持久化关闭，避免数据库写入计入结果。
+ *
+ * @author SmartCustom Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatServiceBenchmark {
+
+    // 每个会话最多进行的轮数，之后换新会话，保持历史长度稳定
+    private static final int TURNS_PER_SESSION = 10;
+
+    private ChatServiceImpl chatService;
+    private String sessionId;
+    private int turns;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+
+        Usage usage = new Usage() {
+            @Override
+            public Long getPromptTokens() {
+                return 120L;
+            }
+
+            @Override
+            public Long getGenerationTokens() {
+                return 40L;
+            }
+        };
+        org.springframework.ai.chat.model.ChatResponse modelResponse = new org.springframework.ai.chat.model.ChatResponse(
+                List.of(new Generation("您好，您的订单已发货，预计明天送达。")),
+                ChatResponseMetadata.builder().withModel("stub-model").withUsage(usage).build());
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public org.springframework.ai.chat.model.ChatResponse call(Prompt prompt) {
+                return modelResponse;
+            }
+        };
+
+        SmartCustomProperties properties = new SmartCustomProperties();
+        properties.getChat().getPersistence().setEnabled(false);
+        SessionWriteBehind sessionWriter = new SessionWriteBehind(
+                null, new ObjectMapper(), properties, Runnable::run, null);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        chatService = new ChatServiceImpl(
+                ChatClient.create(chatModel),
+                new InMemoryChatMemory(),
+                properties,
+                new ToolManagerImpl(),
+                new ConcurrentMapCacheManager("chatSessions"),
+                meterRegistry,
+                sessionWriter,
+                new ChatMetrics(meterRegistry),
+                new TokenUsageTracker(meterRegistry));
+    }
+
+    /**
+     * 新会话的第一轮对话，包含会话创建和删除
+     */
+    @Benchmark
+    public ChatResponse firstTurn() {
+        ChatRequest request = new ChatRequest("我的订单什么时候发货？");
+        request.setUserId("bench-user");
+        ChatResponse response = chatService.chat(request);
+        chatService.deleteSession(response.getSessionId());
+        return response;
+    }
+
+    /**
+     * 已有会话中的后续对话
+     */
+    @Benchmark
+    public ChatResponse followUpTurn() {
+        if (sessionId == null || turns++ >= TURNS_PER_SESSION) {
+            if (sessionId != null) {
+                chatService.deleteSession(sessionId);
+            }
+            sessionId = chatService.createSession("bench-user", "基准测试").getSessionId();
+            turns = 1;
+        }
+
+        ChatRequest request = new ChatRequest("那退款需要多久？");
+        request.setUserId("bench-user");
+        request.setSessionId(sessionId);
+        return chatService.chat(request);
+    }
+}
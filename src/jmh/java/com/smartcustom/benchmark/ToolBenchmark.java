@@ -0,0 +1,112 @@
+package com.smartcustom.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcustom.service.impl.ToolManagerImpl;
+import com.smartcustom.tool.ToolResult;
+import com.smartcustom.tool.calculator.CalculatorTool;
+import com.smartcustom.tool.datetime.DateTimeTool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工具执行基准测试
+ *
+ * 覆盖计算器四则运算和表达式、日期格式化和解析、ToolManager按名称分发以及ToolResult的JSON序列化。
+ *
+ * @author SmartCustom Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ToolBenchmark {
+
+    private CalculatorTool calculatorTool;
+    private DateTimeTool dateTimeTool;
+    private ToolManagerImpl toolManager;
+    private ObjectMapper objectMapper;
+
+    private Map<String, Object> addParams;
+    private Map<String, Object> expressionParams;
+    private Map<String, Object> formatParams;
+    private Map<String, Object> parseParams;
+    private ToolResult toolResult;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+
+        calculatorTool = new CalculatorTool();
+        dateTimeTool = new DateTimeTool();
+        toolManager = new ToolManagerImpl();
+        toolManager.registerTool(calculatorTool);
+        toolManager.registerTool(dateTimeTool);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        addParams = new HashMap<>();
+        addParams.put("operation", "add");
+        addParams.put("operand1", new BigDecimal("123.45"));
+        addParams.put("operand2", new BigDecimal("678.9"));
+
+        expressionParams = new HashMap<>();
+        expressionParams.put("operation", "expression");
+        expressionParams.put("expression", "(2 + 3) * 4 - 10 / 5");
+
+        formatParams = new HashMap<>();
+        formatParams.put("action", "format");
+        formatParams.put("datetime", "2024-01-15 10:30:00");
+        formatParams.put("format", "yyyy年MM月dd日 HH:mm");
+
+        parseParams = new HashMap<>();
+        parseParams.put("action", "parse");
+        parseParams.put("date", "2024-01-15");
+
+        toolResult = calculatorTool.execute(addParams);
+    }
+
+    @Benchmark
+    public ToolResult calculatorAdd() {
+        return calculatorTool.execute(addParams);
+    }
+
+    @Benchmark
+    public ToolResult calculatorExpression() {
+        return calculatorTool.execute(expressionParams);
+    }
+
+    @Benchmark
+    public ToolResult dateTimeFormat() {
+        return dateTimeTool.execute(formatParams);
+    }
+
+    @Benchmark
+    public ToolResult dateTimeParse() {
+        return dateTimeTool.execute(parseParams);
+    }
+
+    @Benchmark
+    public ToolResult toolManagerDispatch() {
+        return toolManager.executeTool("calculator", addParams);
+    }
+
+    @Benchmark
+    public String toolResultToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(toolResult);
+    }
+}
@@ -0,0 +1,238 @@
+package com.smartcustom.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.smartcustom.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * /chat压测驱动
+ *
+ * 以固定速率（开环）发送多轮对话请求：每个时间片取一个等待下一轮的对话发出，
+ * 没有等待中的对话时开始新对话，后续轮次携带上一轮返回的sessionId。
+ * 延迟从计划发送时间算起，服务端变慢导致的排队也计入延迟。
+ *
+ * 启动：mvn -P loadtest test-compile exec:java -Dexec.mainClass=com.smartcustom.loadtest.ChatLoadDriver
+ *      -Dexec.args="--url http://localhost:8080/api/chat --rps 20 --duration 60"
+ * 可用--script指定对话脚本文件：每行一个对话，各轮消息以|分隔。
+ *
+ * @author SmartCustom Team
+ */
+public class ChatLoadDriver {
+
+    private static final List<List<String>> DEFAULT_CONVERSATIONS = List.of(
+            List.of("你好，我想查询一下订单", "订单号是ORD20240115001", "大概什么时候能到？"),
+            List.of("我要申请退款", "商品有质量问题", "退款多久能到账？"),
+            List.of("帮我算一下 128.5 乘以 3 等于多少", "再加上运费12元呢？"),
+            List.of("今天是几号？", "距离2024年12月31日还有多少天？"),
+            List.of("我需要开发票", "抬头是测试科技有限公司", "电子发票就可以"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final URI url;
+    private final Duration timeout;
+    private final List<List<String>> conversations;
+
+    private final Queue<Conversation> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger conversationCounter = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public ChatLoadDriver(URI url, Duration timeout, int maxConnections, List<List<String>> conversations) {
+        this.url = url;
+        this.timeout = timeout;
+        this.conversations = conversations;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(1, maxConnections)))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestOptions.parse(args);
+        URI url = URI.create(options.getOrDefault("url", "http://localhost:8080/api/chat"));
+        double rps = Double.parseDouble(options.getOrDefault("rps", "10"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "1000"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "30")));
+
+        List<List<String>> conversations = options.containsKey("script")
+                ? loadScript(Path.of(options.get("script")))
+                : DEFAULT_CONVERSATIONS;
+
+        ChatLoadDriver driver = new ChatLoadDriver(url, timeout, 64, conversations);
+        driver.run(rps, Duration.ofSeconds(durationSeconds), maxInFlight);
+    }
+
+    /**
+     * 按目标速率运行指定时长，期间每10秒输出一次累计结果
+     *
+     * @param rps 每秒请求数
+     * @param duration 运行时长
+     * @param maxInFlight 最大未完成请求数，超出的时间片计为丢弃，避免驱动自身无限堆积
+     */
+    public void run(double rps, Duration duration, int maxInFlight) throws InterruptedException {
+        long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rps));
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + duration.toNanos();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> report(startNanos), 10, 10, TimeUnit.SECONDS);
+
+        System.out.printf("开始压测: %s, 目标%.1f rps, 持续%ds%n", url, rps, duration.toSeconds());
+        long next = startNanos;
+        while (next < endNanos) {
+            long waitNanos = next - System.nanoTime();
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                dropped.increment();
+            } else {
+                Conversation conversation = ready.poll();
+                if (conversation == null) {
+                    int index = conversationCounter.getAndIncrement();
+                    conversation = new Conversation("load-user-" + index, conversations.get(index % conversations.size()));
+                }
+                send(conversation, next);
+            }
+            next += intervalNanos;
+        }
+
+        // 等待未完成的请求
+        long drainDeadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(100);
+        }
+        reporter.shutdownNow();
+        System.out.println("压测结束");
+        report(startNanos);
+        System.exit(0);
+    }
+
+    private void send(Conversation conversation, long scheduledNanos) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("message", conversation.nextMessage())
+                .put("userId", conversation.userId);
+        if (conversation.sessionId != null) {
+            body.put("sessionId", conversation.sessionId);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
+                .build();
+
+        inFlight.incrementAndGet();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    latency.record(System.nanoTime() - scheduledNanos, TimeUnit.NANOSECONDS);
+
+                    if (error != null || response.statusCode() >= 500 || response.statusCode() == 404) {
+                        failed.increment();
+                        return;
+                    }
+                    if (response.statusCode() == 429) {
+                        throttled.increment();
+                        return;
+                    }
+                    if (response.statusCode() >= 400) {
+                        failed.increment();
+                        return;
+                    }
+                    succeeded.increment();
+
+                    conversation.sessionId = readSessionId(response.body(), conversation.sessionId);
+                    if (conversation.hasNext()) {
+                        ready.offer(conversation);
+                    }
+                });
+    }
+
+    private String readSessionId(String body, String fallback) {
+        try {
+            JsonNode node = objectMapper.readTree(body);
+            return node.hasNonNull("sessionId") ? node.get("sessionId").asText() : fallback;
+        } catch (IOException e) {
+            return fallback;
+        }
+    }
+
+    private void report(long startNanos) {
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        long ok = succeeded.sum();
+        long total = ok + throttled.sum() + failed.sum();
+        System.out.printf("[%5.0fs] 请求%d 成功%d 限流%d 失败%d 丢弃%d 未完成%d | 吞吐%.1f rps 错误率%.2f%% | "
+                        + "p50=%.0fms p95=%.0fms p99=%.0fms max=%.0fms%n",
+                elapsedSeconds, total, ok, throttled.sum(), failed.sum(), dropped.sum(), inFlight.get(),
+                ok / Math.max(elapsedSeconds, 1e-3),
+                total == 0 ? 0 : 100.0 * (total - ok) / total,
+                latency.getPercentileMillis(0.50), latency.getPercentileMillis(0.95),
+                latency.getPercentileMillis(0.99), latency.getMaxMillis());
+    }
+
+    private static List<List<String>> loadScript(Path path) throws IOException {
+        List<List<String>> conversations = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                conversations.add(Arrays.stream(line.split("\\|")).map(String::trim).toList());
+            }
+        }
+        if (conversations.isEmpty()) {
+            throw new IllegalArgumentException("对话脚本为空: " + path);
+        }
+        return conversations;
+    }
+
+    /**
+     * 一个多轮对话的进度
+     */
+    private static class Conversation {
+
+        private final String userId;
+        private final List<String> messages;
+        private int turn;
+        private volatile String sessionId;
+
+        private Conversation(String userId, List<String> messages) {
+            this.userId = userId;
+            this.messages = messages;
+        }
+
+        private String nextMessage() {
+            return messages.get(turn++);
+        }
+
+        private boolean hasNext() {
+            return turn < messages.size();
+        }
+    }
+}
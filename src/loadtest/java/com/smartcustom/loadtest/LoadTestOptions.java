@@ -0,0 +1,30 @@
+package com.smartcustom.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 命令行参数解析，格式为--name value
+ *
+ * @author SmartCustom Team
+ */
+final class LoadTestOptions {
+
+    private LoadTestOptions() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if (i + 1 >= args.length || args[i + 1].startsWith("--")) {
+                throw new IllegalArgumentException("参数缺少取值: " + args[i]);
+            }
+            options.put(name, args[++i]);
+        }
+        return options;
+    }
+}
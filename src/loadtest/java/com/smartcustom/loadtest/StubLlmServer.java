@@ -0,0 +1,240 @@
+package com.smartcustom.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地OpenAI兼容桩服务
+ *
+ * 实现/v1/chat/completions，用于在不调用付费模型的情况下压测/chat：
+ * 响应延迟服从对数正态分布（中位数和离散度可配置），支持stream=true时按令牌间隔输出SSE，
+ * 请求带tools时按比例返回函数调用，收到工具结果后再返回最终回复。
+ *
+ * 启动：mvn -P loadtest test-compile exec:java -Dexec.mainClass=com.smartcustom.loadtest.StubLlmServer
+ *      -Dexec.args="--port 9090 --median-ms 800 --sigma 0.5"
+ * 应用以loadtest环境启动即指向该服务：--spring.profiles.active=loadtest
+ *
+ * @author SmartCustom Team
+ */
+public class StubLlmServer {
+
+    private static final String REPLY = "您好，已为您查询到相关信息：您的订单已发货，预计1-2个工作日送达。"
+            + "如需进一步帮助，请随时告诉我。";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong requestCounter = new AtomicLong();
+
+    private final long medianMillis;
+    private final double sigma;
+    private final long tokenIntervalMillis;
+    private final double toolCallRate;
+
+    public StubLlmServer(long medianMillis, double sigma, long tokenIntervalMillis, double toolCallRate) {
+        this.medianMillis = medianMillis;
+        this.sigma = sigma;
+        this.tokenIntervalMillis = tokenIntervalMillis;
+        this.toolCallRate = toolCallRate;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = LoadTestOptions.parse(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "9090"));
+
+        StubLlmServer stub = new StubLlmServer(
+                Long.parseLong(options.getOrDefault("median-ms", "800")),
+                Double.parseDouble(options.getOrDefault("sigma", "0.5")),
+                Long.parseLong(options.getOrDefault("token-interval-ms", "20")),
+                Double.parseDouble(options.getOrDefault("tool-call-rate", "0.3")));
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        // 每个请求一个虚拟线程，模拟的延迟不占用平台线程
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", stub::handle);
+        server.start();
+        System.out.printf("桩模型服务已启动: http://localhost:%d (中位延迟%dms, sigma=%.2f, 函数调用比例=%.2f)%n",
+                port, stub.medianMillis, stub.sigma, stub.toolCallRate);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if (!"POST".equals(exchange.getRequestMethod()) || !path.endsWith("/chat/completions")) {
+                sendJson(exchange, 404, objectMapper.createObjectNode().put("error", "not found: " + path));
+                return;
+            }
+
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readTree(body);
+            }
+
+            sleep(sampleLatency());
+
+            String model = request.path("model").asText("stub-model");
+            int promptTokens = estimatePromptTokens(request.path("messages"));
+            JsonNode toolCall = shouldCallTool(request) ? buildToolCall(request.path("tools").get(0)) : null;
+
+            if (request.path("stream").asBoolean(false)) {
+                stream(exchange, model, toolCall);
+            } else {
+                sendJson(exchange, 200, buildCompletion(model, promptTokens, toolCall));
+            }
+        } catch (Exception e) {
+            sendJson(exchange, 500, objectMapper.createObjectNode().put("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * 对数正态分布延迟：中位数为median，sigma越大长尾越明显
+     */
+    private long sampleLatency() {
+        double gaussian = ThreadLocalRandom.current().nextGaussian();
+        return Math.round(medianMillis * Math.exp(sigma * gaussian));
+    }
+
+    /**
+     * 带tools且最后一条消息来自用户时，按比例返回函数调用；收到工具结果后返回最终回复
+     */
+    private boolean shouldCallTool(JsonNode request) {
+        JsonNode tools = request.path("tools");
+        JsonNode messages = request.path("messages");
+        if (!tools.isArray() || tools.isEmpty() || !messages.isArray() || messages.isEmpty()) {
+            return false;
+        }
+        String lastRole = messages.get(messages.size() - 1).path("role").asText();
+        return "user".equals(lastRole) && ThreadLocalRandom.current().nextDouble() < toolCallRate;
+    }
+
+    private JsonNode buildToolCall(JsonNode tool) {
+        ObjectNode call = objectMapper.createObjectNode();
+        call.put("id", "call_" + requestCounter.incrementAndGet());
+        call.put("type", "function");
+        call.putObject("function")
+                .put("name", tool.path("function").path("name").asText())
+                .put("arguments", "{}");
+        return call;
+    }
+
+    private ObjectNode buildCompletion(String model, int promptTokens, JsonNode toolCall) {
+        ObjectNode message = objectMapper.createObjectNode().put("role", "assistant");
+        ObjectNode choice = objectMapper.createObjectNode().put("index", 0);
+        int completionTokens;
+        if (toolCall != null) {
+            message.putNull("content");
+            message.putArray("tool_calls").add(toolCall);
+            choice.put("finish_reason", "tool_calls");
+            completionTokens = 10;
+        } else {
+            message.put("content", REPLY);
+            choice.put("finish_reason", "stop");
+            completionTokens = REPLY.length();
+        }
+        choice.set("message", message);
+
+        ObjectNode completion = baseChunk(model, "chat.completion");
+        completion.putArray("choices").add(choice);
+        completion.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+        return completion;
+    }
+
+    /**
+     * 以SSE逐个令牌输出，每个令牌间隔tokenIntervalMillis
+     */
+    private void stream(HttpExchange exchange, String model, JsonNode toolCall) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (toolCall != null) {
+                ObjectNode delta = objectMapper.createObjectNode().put("role", "assistant");
+                delta.putArray("tool_calls").add(((ObjectNode) toolCall.deepCopy()).put("index", 0));
+                writeEvent(out, streamChunk(model, delta, "tool_calls"));
+            } else {
+                for (int i = 0; i < REPLY.length(); i++) {
+                    ObjectNode delta = objectMapper.createObjectNode().put("content", REPLY.substring(i, i + 1));
+                    writeEvent(out, streamChunk(model, delta, null));
+                    sleep(tokenIntervalMillis);
+                }
+                writeEvent(out, streamChunk(model, objectMapper.createObjectNode(), "stop"));
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    private ObjectNode streamChunk(String model, ObjectNode delta, String finishReason) {
+        ObjectNode choice = objectMapper.createObjectNode().put("index", 0);
+        choice.set("delta", delta);
+        if (finishReason != null) {
+            choice.put("finish_reason", finishReason);
+        } else {
+            choice.putNull("finish_reason");
+        }
+        ObjectNode chunk = baseChunk(model, "chat.completion.chunk");
+        chunk.putArray("choices").add(choice);
+        return chunk;
+    }
+
+    private ObjectNode baseChunk(String model, String object) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", "chatcmpl-stub-" + requestCounter.incrementAndGet());
+        node.put("object", object);
+        node.put("created", System.currentTimeMillis() / 1000);
+        node.put("model", model);
+        return node;
+    }
+
+    private void writeEvent(OutputStream out, JsonNode chunk) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 粗略估算提示令牌数：中文约每字一个令牌
+     */
+    private static int estimatePromptTokens(JsonNode messages) {
+        int chars = 0;
+        if (messages instanceof ArrayNode array) {
+            for (JsonNode message : array) {
+                chars += message.path("content").asText("").length();
+            }
+        }
+        return Math.max(1, chars);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
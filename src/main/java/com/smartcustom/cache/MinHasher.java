@@ -0,0 +1,144 @@
+package com.smartcustom.cache;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 文本归一化与MinHash签名
+ *
+ * 归一化后按字符n-gram切分（中文无需分词），每个n-gram哈希为int。
+ * 签名由NUM_HASHES个独立哈希函数下的最小值组成，两段文本签名相同位置相等的比例
+ * 是其n-gram集合Jaccard相似度的无偏估计；签名再按BANDS段分桶用于局部敏感哈希检索。
+ *
+ * @author SmartCustom Team
+ */
+final class MinHasher {
+
+    static final int NUM_HASHES = 64;
+    static final int BANDS = 16;
+    static final int ROWS_PER_BAND = NUM_HASHES / BANDS;
+
+    // 只表达语气、不改变问题含义的字符，归一化时去掉
+    private static final String FILLER_CHARS = "吗呢吧啊呀哦嘛哈";
+    private static final String[] FILLER_PHRASES = {"请问一下", "请问", "想问一下", "问一下", "你好", "您好"};
+
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final int shingleSize;
+
+    MinHasher(int shingleSize) {
+        this.shingleSize = Math.max(1, shingleSize);
+    }
+
+    /**
+     * 归一化文本：全角转半角、统一小写，去掉空白、标点、语气词和客套用语
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder builder = new StringBuilder(folded.length());
+        folded.codePoints()
+                .filter(cp -> Character.isLetterOrDigit(cp) && FILLER_CHARS.indexOf(cp) < 0)
+                .forEach(builder::appendCodePoint);
+        String normalized = builder.toString();
+        for (String phrase : FILLER_PHRASES) {
+            normalized = normalized.replace(phrase, "");
+        }
+        return normalized;
+    }
+
+    /**
+     * 切分归一化文本的字符n-gram
+     *
+     * @param normalized 归一化后的文本
+     * @return 去重并升序排列的n-gram哈希
+     */
+    int[] shingles(String normalized) {
+        int[] codePoints = normalized.codePoints().toArray();
+        if (codePoints.length == 0) {
+            return new int[0];
+        }
+        int count = Math.max(1, codePoints.length - shingleSize + 1);
+        int[] hashes = new int[count];
+        for (int i = 0; i < count; i++) {
+            int hash = 1;
+            for (int j = i; j < Math.min(codePoints.length, i + shingleSize); j++) {
+                hash = 31 * hash + codePoints[j];
+            }
+            hashes[i] = hash;
+        }
+        return Arrays.stream(hashes).sorted().distinct().toArray();
+    }
+
+    /**
+     * 计算MinHash签名
+     */
+    static int[] signature(int[] shingles) {
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int shingle : shingles) {
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int hash = (int) mix(shingle ^ SEEDS[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 计算签名第band段的分桶键
+     */
+    static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS_PER_BAND; i < (band + 1) * ROWS_PER_BAND; i++) {
+            key = key * 0x100000001B3L + signature[i];
+        }
+        return mix(key);
+    }
+
+    /**
+     * 计算两个有序n-gram集合的Jaccard相似度
+     */
+    static double jaccard(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,139 @@
+package com.smartcustom.cache;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.model.dto.ChatRequest;
+import com.smartcustom.util.PromptHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 完整提示词的精确匹配缓存
+ *
+ * 键为系统提示词、对话历史、用户消息和模型参数的128位哈希，命中时直接复用之前的回答。
+ * 存储为定长的直接映射数组：键的哈希决定槽位，冲突时新条目覆盖旧条目，
+ * 读写各只有一次数组访问，不加锁，也不需要额外的淘汰记录，内存固定。
+ * 温度高于配置值的请求每次回答本应不同，默认不使用缓存。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class PromptCache {
+
+    private final SmartCustomProperties.Chat.PromptCache config;
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+
+    @Autowired
+    public PromptCache(SmartCustomProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getChat().getPromptCache();
+        int capacity = Integer.highestOneBit(Math.max(1, config.getMaxEntries() - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.bypasses = counter(meterRegistry, "bypass");
+    }
+
+    /**
+     * 计算请求的缓存键
+     *
+     * @param systemPrompt 系统提示词
+     * @param history 发送给模型的对话历史，包含本轮用户消息
+     * @param request 聊天请求
+     * @return 缓存键，请求不适合缓存时返回null
+     */
+    public PromptHasher.Hash keyFor(String systemPrompt, List<Message> history, ChatRequest request) {
+        if (!config.isEnabled() || request.getTemperature() > config.getMaxTemperature()) {
+            bypasses.increment();
+            return null;
+        }
+
+        PromptHasher hasher = new PromptHasher()
+                .put(systemPrompt)
+                .put(request.getModel())
+                .put(request.getTemperature())
+                .put(request.getMaxTokens())
+                .put(history.size());
+        for (Message message : history) {
+            hasher.put(message.getMessageType().ordinal()).put(message.getContent());
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * 查找缓存的回答
+     *
+     * @param key {@link #keyFor}返回的缓存键
+     * @return 缓存的回答，未命中时返回null
+     */
+    public String get(PromptHasher.Hash key) {
+        Entry entry = slots.get(slot(key));
+        if (entry != null && entry.key.equals(key) && System.nanoTime() - entry.expiresAt < 0) {
+            hits.increment();
+            return entry.content;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 缓存回答
+     *
+     * @param key {@link #keyFor}返回的缓存键
+     * @param content 回答内容
+     */
+    public void put(PromptHasher.Hash key, String content) {
+        if (content == null || content.isEmpty()) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getTtlSeconds());
+        slots.set(slot(key), new Entry(key, content, expiresAt));
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    private int slot(PromptHasher.Hash key) {
+        return (int) key.getLow() & mask;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("smartcustom.prompt.cache")
+                .description("提示词精确匹配缓存查找次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class Entry {
+
+        private final PromptHasher.Hash key;
+        private final String content;
+        private final long expiresAt;
+
+        private Entry(PromptHasher.Hash key, String content, long expiresAt) {
+            this.key = key;
+            this.content = content;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
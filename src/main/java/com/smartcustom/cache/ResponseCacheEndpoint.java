@@ -0,0 +1,41 @@
+package com.smartcustom.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * 语义响应缓存管理端点，访问路径为/actuator/responsecache
+ *
+ * @author SmartCustom Team
+ */
+@Component
+@Endpoint(id = "responsecache")
+public class ResponseCacheEndpoint {
+
+    private final SemanticResponseCache responseCache;
+
+    @Autowired
+    public ResponseCacheEndpoint(SemanticResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @ReadOperation
+    public SemanticResponseCache.CacheStats stats() {
+        return responseCache.getStats();
+    }
+
+    /**
+     * 使缓存失效，指定question时只清除与其相似的条目
+     *
+     * @param question 问题，为空时清空缓存
+     * @return 清除的条目数
+     */
+    @DeleteOperation
+    public int invalidate(@Nullable String question) {
+        return question != null ? responseCache.invalidate(question) : responseCache.clear();
+    }
+}
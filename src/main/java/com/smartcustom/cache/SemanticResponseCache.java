@@ -0,0 +1,323 @@
+package com.smartcustom.cache;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.tool.ToolPrefetcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 常见问题的语义响应缓存
+ *
+ * 问题归一化后先按原文精确查找，找不到再用MinHash局部敏感哈希取出近似问题，
+ * 以n-gram集合的Jaccard相似度确认，达到阈值即返回缓存的回答。
+ * 条目按TTL过期，超出容量时淘汰最早写入的条目。
+ * 包含订单号、运单号、退款单号或长数字串的问题与具体用户相关，不参与缓存。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class SemanticResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SemanticResponseCache.class);
+
+    private static final Pattern IDENTIFIER = Pattern.compile("\\d{4,}");
+
+    private final SmartCustomProperties.Chat.ResponseCache config;
+    private final MinHasher hasher;
+
+    // 条目ID单调递增，按ID排序即按写入顺序排序，容量淘汰时取第一个
+    private final NavigableMap<Long, Entry> entries = new ConcurrentSkipListMap<>();
+    private final Map<String, Entry> exactIndex = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> bandIndex = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    @Autowired
+    public SemanticResponseCache(SmartCustomProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getChat().getResponseCache();
+        this.hasher = new MinHasher(config.getShingleSize());
+        this.hits = Counter.builder("smartcustom.response.cache")
+                .description("语义响应缓存查找次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("smartcustom.response.cache")
+                .description("语义响应缓存查找次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("smartcustom.response.cache.size", size, AtomicInteger::get)
+                .description("语义响应缓存条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查找与问题相似的缓存回答
+     *
+     * @param question 用户问题
+     * @return 缓存的回答，未命中或问题不可缓存时返回null
+     */
+    public String get(String question) {
+        String normalized = cacheableKey(question);
+        if (normalized == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+
+        Entry exact = exactIndex.get(normalized);
+        if (exact != null && !exact.isExpired(now)) {
+            return hit(exact);
+        }
+
+        int[] shingles = hasher.shingles(normalized);
+        Entry best = null;
+        double bestSimilarity = config.getSimilarityThreshold();
+        for (Long id : candidates(MinHasher.signature(shingles))) {
+            Entry candidate = entries.get(id);
+            if (candidate == null || candidate.isExpired(now)) {
+                continue;
+            }
+            double similarity = MinHasher.jaccard(shingles, candidate.shingles);
+            if (similarity >= bestSimilarity) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+
+        if (best == null) {
+            misses.increment();
+            missCount.increment();
+            return null;
+        }
+        return hit(best);
+    }
+
+    /**
+     * 缓存问题的回答
+     *
+     * @param question 用户问题
+     * @param answer 回答内容
+     */
+    public void put(String question, String answer) {
+        String normalized = cacheableKey(question);
+        if (normalized == null || answer == null || answer.isEmpty()) {
+            return;
+        }
+
+        int[] shingles = hasher.shingles(normalized);
+        int[] signature = MinHasher.signature(shingles);
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getTtlSeconds());
+        Entry entry = new Entry(nextId.incrementAndGet(), normalized, shingles, signature, answer, expiresAt);
+
+        Entry previous = exactIndex.put(normalized, entry);
+        if (previous != null) {
+            remove(previous);
+        }
+        entries.put(entry.id, entry);
+        size.incrementAndGet();
+        for (int band = 0; band < MinHasher.BANDS; band++) {
+            bandIndex.computeIfAbsent(MinHasher.bandKey(signature, band), k -> ConcurrentHashMap.newKeySet())
+                    .add(entry.id);
+        }
+
+        while (size.get() > config.getMaxEntries()) {
+            Map.Entry<Long, Entry> oldest = entries.firstEntry();
+            if (oldest == null) {
+                break;
+            }
+            remove(oldest.getValue());
+        }
+    }
+
+    /**
+     * 使与问题相似的缓存回答失效，用于相关政策或知识更新后
+     *
+     * @param question 用户问题
+     * @return 失效的条目数
+     */
+    public int invalidate(String question) {
+        String normalized = MinHasher.normalize(question);
+        if (normalized.isEmpty()) {
+            return 0;
+        }
+        int[] shingles = hasher.shingles(normalized);
+        int removed = 0;
+        for (Long id : candidates(MinHasher.signature(shingles))) {
+            Entry candidate = entries.get(id);
+            if (candidate != null && MinHasher.jaccard(shingles, candidate.shingles) >= config.getSimilarityThreshold()
+                    && remove(candidate)) {
+                removed++;
+            }
+        }
+        Entry exact = exactIndex.get(normalized);
+        if (exact != null && remove(exact)) {
+            removed++;
+        }
+        return removed;
+    }
+
+    /**
+     * 清空缓存
+     *
+     * @return 清除的条目数
+     */
+    public int clear() {
+        int removed = 0;
+        for (Entry entry : entries.values()) {
+            if (remove(entry)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 定期清理已过期的条目
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.isExpired(now) && remove(entry)) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.debug("清理了 {} 条过期的响应缓存", removed);
+        }
+    }
+
+    /**
+     * 获取缓存统计
+     */
+    public CacheStats getStats() {
+        return new CacheStats(size.get(), hitCount.sum(), missCount.sum());
+    }
+
+    /**
+     * 判断问题是否可以缓存
+     *
+     * @return 归一化后的问题，不可缓存时返回null
+     */
+    private String cacheableKey(String question) {
+        if (!config.isEnabled() || question == null || IDENTIFIER.matcher(question).find()
+                || ToolPrefetcher.containsIdentifier(question)) {
+            return null;
+        }
+        String normalized = MinHasher.normalize(question);
+        return normalized.codePointCount(0, normalized.length()) >= config.getMinLength() ? normalized : null;
+    }
+
+    private Set<Long> candidates(int[] signature) {
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < MinHasher.BANDS; band++) {
+            Set<Long> ids = bandIndex.get(MinHasher.bandKey(signature, band));
+            if (ids != null) {
+                candidates.addAll(ids);
+            }
+        }
+        return candidates;
+    }
+
+    private String hit(Entry entry) {
+        hits.increment();
+        hitCount.increment();
+        return entry.answer;
+    }
+
+    private boolean remove(Entry entry) {
+        if (!entries.remove(entry.id, entry)) {
+            return false;
+        }
+        size.decrementAndGet();
+        exactIndex.remove(entry.normalized, entry);
+        for (int band = 0; band < MinHasher.BANDS; band++) {
+            bandIndex.computeIfPresent(MinHasher.bandKey(entry.signature, band), (key, ids) -> {
+                ids.remove(entry.id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        return true;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class Entry {
+
+        private final long id;
+        private final String normalized;
+        private final int[] shingles;
+        private final int[] signature;
+        private final String answer;
+        private final long expiresAt;
+
+        private Entry(long id, String normalized, int[] shingles, int[] signature, String answer, long expiresAt) {
+            this.id = id;
+            this.normalized = normalized;
+            this.shingles = shingles;
+            this.signature = signature;
+            this.answer = answer;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public static class CacheStats {
+
+        private final int size;
+        private final long hits;
+        private final long misses;
+
+        public CacheStats(int size, long hits, long misses) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
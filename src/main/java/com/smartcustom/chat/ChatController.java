@@ -2,7 +2,9 @@ package com.smartcustom.controller;
 
 import com.smartcustom.model.dto.ChatRequest;
 import com.smartcustom.model.dto.ChatResponse;
+import com.smartcustom.ratelimit.ChatRateLimiter;
 import com.smartcustom.service.ChatService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,10 +25,12 @@ import java.util.concurrent.CompletableFuture;
 public class ChatController {
     
     private final ChatService chatService;
+    private final ChatRateLimiter chatRateLimiter;
     
     @Autowired
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, ChatRateLimiter chatRateLimiter) {
         this.chatService = chatService;
+        this.chatRateLimiter = chatRateLimiter;
     }
     
     /**
@@ -36,12 +40,35 @@ public class ChatController {
      * @return 聊天响应
      */
     @PostMapping
-    public ResponseEntity<ChatResponse> chat(@Valid @RequestBody ChatRequest request) {
-        ChatResponse response = chatService.chat(request);
-        if (response.getError() != null) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    public ResponseEntity<ChatResponse> chat(@Valid @RequestBody ChatRequest request,
+                                             HttpServletRequest httpRequest) {
+        try (ChatRateLimiter.Permit permit = chatRateLimiter.acquire(rateLimitKey(request, httpRequest))) {
+            ChatResponse response = chatService.chat(request);
+            if (response.getError() != null) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
+            return ResponseEntity.ok(response);
+        }
+    }
+    
+    /**
+     * 发送可以调用工具的聊天消息
+     * 
+     * @param request 聊天请求
+     * @param tools 本轮可以使用的工具名称
+     * @return 聊天响应
+     */
+    @PostMapping("/tools")
+    public ResponseEntity<ChatResponse> chatWithTools(@Valid @RequestBody ChatRequest request,
+                                                      @RequestParam List<String> tools,
+                                                      HttpServletRequest httpRequest) {
+        try (ChatRateLimiter.Permit permit = chatRateLimiter.acquire(rateLimitKey(request, httpRequest))) {
+            ChatResponse response = chatService.chatWithTools(request, tools);
+            if (response.getError() != null) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            }
+            return ResponseEntity.ok(response);
         }
-        return ResponseEntity.ok(response);
     }
     
     /**
@@ -51,14 +78,23 @@ public class ChatController {
      * @return 异步聊天响应
      */
     @PostMapping("/async")
-    public CompletableFuture<ResponseEntity<ChatResponse>> chatAsync(@Valid @RequestBody ChatRequest request) {
-        return chatService.chatAsync(request)
-                .thenApply(response -> {
-                    if (response.getError() != null) {
-                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-                    }
-                    return ResponseEntity.ok(response);
-                });
+    public CompletableFuture<ResponseEntity<ChatResponse>> chatAsync(@Valid @RequestBody ChatRequest request,
+                                                                     HttpServletRequest httpRequest) {
+        // 许可在异步任务完成时释放，而不是在控制器方法返回时
+        ChatRateLimiter.Permit permit = chatRateLimiter.acquire(rateLimitKey(request, httpRequest));
+        try {
+            return chatService.chatAsync(request)
+                    .whenComplete((response, error) -> permit.close())
+                    .thenApply(response -> {
+                        if (response.getError() != null) {
+                            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+                        }
+                        return ResponseEntity.ok(response);
+                    });
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
     }
     
     /**
@@ -129,4 +165,14 @@ public class ChatController {
         chatService.cleanupExpiredSessions();
         return ResponseEntity.ok().build();
     }
+    
+    /**
+     * 限流键：优先使用用户ID，匿名请求按客户端地址限流
+     */
+    private String rateLimitKey(ChatRequest request, HttpServletRequest httpRequest) {
+        if (request.getUserId() != null && !request.getUserId().isBlank()) {
+            return request.getUserId();
+        }
+        return "ip:" + httpRequest.getRemoteAddr();
+    }
 }
\ No newline at end of file
@@ -3,8 +3,9 @@ package com.smartcustom.model;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.smartcustom.util.IdGenerator;
+
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
  * 聊天消息模型
@@ -120,7 +121,7 @@ public class ChatMessage {
     }
     
     public ChatMessage() {
-        this.messageId = UUID.randomUUID().toString();
+        this.messageId = IdGenerator.getInstance().nextCompactId();
         this.timestamp = LocalDateTime.now();
         this.read = false;
     }
@@ -132,6 +133,17 @@ public class ChatMessage {
         this.content = content;
     }
     
+    /**
+     * 从紧凑存储还原消息，不重新生成消息ID
+     */
+    ChatMessage(String messageId, String sessionId, MessageType type, String content, LocalDateTime timestamp) {
+        this.messageId = messageId;
+        this.sessionId = sessionId;
+        this.type = type;
+        this.content = content;
+        this.timestamp = timestamp;
+    }
+    
     @JsonProperty("messageId")
     public String getMessageId() {
         return messageId;
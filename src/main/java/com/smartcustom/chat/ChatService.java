@@ -30,6 +30,15 @@ public interface ChatService {
      */
     CompletableFuture<ChatResponse> chatAsync(ChatRequest request);
     
+    /**
+     * 处理可以调用工具的聊天请求
+     * 
+     * @param request 聊天请求
+     * @param toolNames 本轮可以使用的工具名称
+     * @return 聊天响应
+     */
+    ChatResponse chatWithTools(ChatRequest request, List<String> toolNames);
+    
     /**
      * 获取会话
      * 
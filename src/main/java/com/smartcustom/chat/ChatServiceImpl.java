@@ -1,25 +1,48 @@
 package com.smartcustom.service.impl;
 
+import com.smartcustom.cache.PromptCache;
+import com.smartcustom.cache.SemanticResponseCache;
 import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.config.SpringAiConfig;
+import com.smartcustom.intent.IntentMatcher;
+import com.smartcustom.metrics.ChatMetrics;
+import com.smartcustom.metrics.TokenUsageTracker;
 import com.smartcustom.model.ChatMessage;
 import com.smartcustom.model.ChatSession;
 import com.smartcustom.model.dto.ChatRequest;
 import com.smartcustom.model.dto.ChatResponse;
+import com.smartcustom.resilience.DegradedResponder;
+import com.smartcustom.resilience.ModelCallException;
+import com.smartcustom.resilience.ModelCallExecutor;
+import com.smartcustom.routing.ModelRoute;
+import com.smartcustom.routing.ModelRouter;
 import com.smartcustom.service.ChatService;
 import com.smartcustom.service.ToolManager;
+import com.smartcustom.tool.Tool;
+import com.smartcustom.tool.ToolPrefetcher;
 import com.smartcustom.tool.ToolResult;
+import com.smartcustom.util.PromptHasher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.client.advisor.PromptChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.SystemPromptTemplate;
+import org.springframework.ai.model.function.FunctionCallback;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.scheduling.annotation.Async;
@@ -27,20 +50,22 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 聊天服务实现类
  * 
  * LangGraph功能在Spring AI中的体现：
  * 1. 状态管理 - 通过ChatMemory和ChatSession实现对话状态的持久化和管理
- * 2. 节点流程 - 通过Advisor链实现处理流程的编排，如MessageChatMemoryAdvisor
+ * 2. 节点流程 - 通过ChatClient请求链实现处理流程的编排
  * 3. 条件路由 - 可以基于不同条件选择不同的处理路径
  * 4. 工具调用 - 通过FunctionCallback集成外部工具，类似于LangGraph的工具节点
  * 5. 记忆管理 - 通过ChatMemory实现短期和长期记忆，支持上下文保持
@@ -52,26 +77,166 @@ public class ChatServiceImpl implements ChatService {
     
     private static final Logger logger = LoggerFactory.getLogger(ChatServiceImpl.class);
     
+    /**
+     * 过期索引时间桶宽度（毫秒）
+     */
+    private static final long EXPIRY_TICK_MILLIS = 60000;
+    
+    /**
+     * 未配置模型路由时默认客户端的熔断器名称
+     */
+    private static final String DEFAULT_ENDPOINT = "default";
+    
     private final ChatClient chatClient;
     private final ChatMemory chatMemory;
     private final SmartCustomProperties properties;
     private final ToolManager toolManager;
+    private final CacheManager cacheManager;
+    private final SessionWriteBehind sessionWriter;
+    private final ChatMetrics chatMetrics;
+    private final TokenUsageTracker tokenUsageTracker;
     
-    // 使用内存存储会话（生产环境应使用数据库）
+    // 内存中的活跃会话，经写回缓冲批量持久化到数据库
     private final Map<String, ChatSession> sessionStore = new ConcurrentHashMap<>();
     private final Map<String, List<String>> userSessions = new ConcurrentHashMap<>();
     
+    // 按最后活跃时间索引会话，清理时只访问已过期的会话
+    private final SessionExpiryIndex expiryIndex = new SessionExpiryIndex(EXPIRY_TICK_MILLIS);
+    
+    // 同一会话的轮次串行执行，重复提交的相同消息合并为一次
+    private final SessionTurnGate turnGate = new SessionTurnGate();
+    
+    private final Timer cleanupTimer;
+    private final Counter expiredSessionCounter;
+    
+    // 会话中保留的消息总数
+    private final AtomicLong retainedMessages = new AtomicLong();
+    
+    // 带工具对话的系统提示词是常量，构建时渲染一次
+    private final String toolSystemPrompt = new SystemPromptTemplate(SpringAiConfig.TOOL_SYSTEM_PROMPT).render();
+    
+    private SemanticResponseCache responseCache;
+    private PromptCache promptCache;
+    private ModelRouter modelRouter;
+    private IntentMatcher intentMatcher;
+    private ToolPrefetcher toolPrefetcher;
+    private ModelCallExecutor modelCallExecutor;
+    private DegradedResponder degradedResponder;
+    
     @Autowired
     public ChatServiceImpl(ChatClient chatClient, ChatMemory chatMemory, 
-                          SmartCustomProperties properties, ToolManager toolManager) {
+                          SmartCustomProperties properties, ToolManager toolManager,
+                          CacheManager cacheManager, MeterRegistry meterRegistry,
+                          SessionWriteBehind sessionWriter, ChatMetrics chatMetrics,
+                          TokenUsageTracker tokenUsageTracker) {
         this.chatClient = chatClient;
         this.chatMemory = chatMemory;
         this.properties = properties;
         this.toolManager = toolManager;
+        this.cacheManager = cacheManager;
+        this.sessionWriter = sessionWriter;
+        this.chatMetrics = chatMetrics;
+        this.tokenUsageTracker = tokenUsageTracker;
+        this.cleanupTimer = Timer.builder("smartcustom.session.cleanup")
+                .description("过期会话清理耗时")
+                .register(meterRegistry);
+        this.expiredSessionCounter = Counter.builder("smartcustom.session.expired")
+                .description("已清理的过期会话数")
+                .register(meterRegistry);
+        Gauge.builder("smartcustom.sessions.active", sessionStore, Map::size)
+                .description("内存中的活跃会话数")
+                .register(meterRegistry);
+        Gauge.builder("smartcustom.sessions.users", userSessions, Map::size)
+                .description("拥有活跃会话的用户数")
+                .register(meterRegistry);
+        Gauge.builder("smartcustom.sessions.messages", retainedMessages, AtomicLong::get)
+                .description("会话中保留的消息总数")
+                .register(meterRegistry);
+        FunctionCounter.builder("smartcustom.chat.coalesced", turnGate, SessionTurnGate::getCoalescedCount)
+                .description("与执行中的相同消息合并的重复请求数")
+                .register(meterRegistry);
+        Gauge.builder("smartcustom.sessions.pending.writes", sessionWriter, SessionWriteBehind::getPendingCount)
+                .description("等待写入数据库的会话数")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * 设置语义响应缓存，未设置时每轮对话都调用模型
+     * 
+     * @param responseCache 语义响应缓存
+     */
+    @Autowired(required = false)
+    public void setResponseCache(SemanticResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+    
+    /**
+     * 设置提示词精确匹配缓存，未设置时每轮对话都调用模型
+     * 
+     * @param promptCache 提示词缓存
+     */
+    @Autowired(required = false)
+    public void setPromptCache(PromptCache promptCache) {
+        this.promptCache = promptCache;
+    }
+    
+    /**
+     * 设置模型路由，未设置时所有请求使用默认客户端并忽略请求中的模型参数
+     * 
+     * @param modelRouter 模型路由
+     */
+    @Autowired(required = false)
+    public void setModelRouter(ModelRouter modelRouter) {
+        this.modelRouter = modelRouter;
+    }
+    
+    /**
+     * 设置规则意图识别，未设置时带工具的对话总是调用模型
+     * 
+     * @param intentMatcher 意图识别
+     */
+    @Autowired(required = false)
+    public void setIntentMatcher(IntentMatcher intentMatcher) {
+        this.intentMatcher = intentMatcher;
+    }
+    
+    /**
+     * 设置工具结果预取，未设置时模型调用工具时才执行工具
+     * 
+     * @param toolPrefetcher 工具结果预取
+     */
+    @Autowired(required = false)
+    public void setToolPrefetcher(ToolPrefetcher toolPrefetcher) {
+        this.toolPrefetcher = toolPrefetcher;
+    }
+    
+    /**
+     * 设置模型调用容错执行器，未设置时直接调用模型
+     * 
+     * @param modelCallExecutor 模型调用容错执行器
+     */
+    @Autowired(required = false)
+    public void setModelCallExecutor(ModelCallExecutor modelCallExecutor) {
+        this.modelCallExecutor = modelCallExecutor;
+    }
+    
+    /**
+     * 设置降级回复，未设置时模型不可用直接返回错误
+     * 
+     * @param degradedResponder 降级回复
+     */
+    @Autowired(required = false)
+    public void setDegradedResponder(DegradedResponder degradedResponder) {
+        this.degradedResponder = degradedResponder;
     }
     
     @Override
     public ChatResponse chat(ChatRequest request) {
+        return turnGate.run(request.getSessionId(), "chat:" + request.getMessage(), () -> doChat(request));
+    }
+    
+    private ChatResponse doChat(ChatRequest request) {
+        ChatMetrics.Stopwatch stopwatch = chatMetrics.start("chat");
         try {
             // 获取或创建会话
             String sessionId = request.getSessionId();
@@ -82,6 +247,9 @@ public class ChatServiceImpl implements ChatService {
                 sessionId = session.getSessionId();
             }
             
+            // 会话中只有欢迎消息时回答不依赖上下文，可以使用语义响应缓存
+            boolean cacheable = responseCache != null && session.getMessageCount() <= 1;
+            
             // 添加用户消息到会话
             ChatMessage userMessage = new ChatMessage(
                 sessionId, 
@@ -89,6 +257,22 @@ public class ChatServiceImpl implements ChatService {
                 request.getMessage()
             );
             session.addMessage(userMessage);
+            retainedMessages.incrementAndGet();
+            stopwatch.describe(sessionId, request.getMessage() != null ? request.getMessage().length() : 0,
+                    session.getMessageCount());
+            stopwatch.lap(ChatMetrics.STAGE_SESSION);
+            
+            if (cacheable) {
+                String cachedContent = responseCache.get(request.getMessage());
+                stopwatch.lap(ChatMetrics.STAGE_CACHE);
+                if (cachedContent != null) {
+                    ChatResponse response = replyWithoutModel(session, request.getMessage(), cachedContent,
+                            ChatResponse.Source.CACHE);
+                    stopwatch.lap(ChatMetrics.STAGE_RESPONSE);
+                    stopwatch.stop(true);
+                    return response;
+                }
+            }
             
             // 使用Spring AI Alibaba生成响应
             String conversationId = sessionId; // 使用sessionId作为conversationId
@@ -97,19 +281,53 @@ public class ChatServiceImpl implements ChatService {
             int maxHistory = properties != null && properties.getChat() != null ? 
                              properties.getChat().getMaxHistory() : 20;
             
-            // 使用MessageChatMemoryAdvisor管理对话历史
-            MessageChatMemoryAdvisor advisor = new MessageChatMemoryAdvisor(chatMemory, conversationId, maxHistory);
-            
-            // 添加用户消息到记忆
+            // 添加用户消息到记忆，取出的历史已包含本轮消息
             chatMemory.add(conversationId, new UserMessage(request.getMessage()));
+            List<Message> history = chatMemory.get(conversationId, maxHistory);
             
-            // 调用Spring AI Alibaba ChatClient生成响应
-            String responseContent = chatClient
-                .prompt()
-                .user(request.getMessage())
-                .advisors(advisor)
-                .call()
-                .content();
+            // 发送给模型的完整提示词与之前某次请求相同时直接复用回答
+            PromptHasher.Hash promptKey = promptCache != null
+                    ? promptCache.keyFor(SpringAiConfig.DEFAULT_SYSTEM_PROMPT, history, request)
+                    : null;
+            String responseContent = promptKey != null ? promptCache.get(promptKey) : null;
+            
+            stopwatch.lap(ChatMetrics.STAGE_MEMORY);
+            
+            org.springframework.ai.chat.model.ChatResponse modelResponse = null;
+            if (responseContent == null) {
+                // 调用Spring AI Alibaba ChatClient生成响应，历史显式传入，重试和对冲不会重复写入记忆
+                ModelRoute route = routeFor(request);
+                ChatClient client = clientFor(route);
+                Callable<org.springframework.ai.chat.model.ChatResponse> call = () -> client
+                    .prompt()
+                    .messages(history)
+                    .call()
+                    .chatResponse();
+                try {
+                    modelResponse = degradedResponder != null && degradedResponder.isEnabled()
+                            ? callModel(route, degradedResponder.getLatencyBudgetMillis(), call)
+                            : callModel(route, call);
+                } catch (ModelCallException e) {
+                    // 熔断打开、超过延迟预算或模型不可用时降级回复，熔断器恢复后自动回到模型
+                    if (degradedResponder == null || !degradedResponder.shouldDegrade(e)) {
+                        throw e;
+                    }
+                    ChatResponse response = replyDegraded(session, request.getMessage(), cacheable, e);
+                    stopwatch.lap(ChatMetrics.STAGE_RESPONSE);
+                    stopwatch.stop(true);
+                    return response;
+                }
+                responseContent = getContent(modelResponse);
+                stopwatch.lap(ChatMetrics.STAGE_MODEL);
+                
+                if (promptKey != null) {
+                    promptCache.put(promptKey, responseContent);
+                }
+            }
+            
+            if (cacheable) {
+                responseCache.put(request.getMessage(), responseContent);
+            }
             
             // 添加助手回复到记忆
             chatMemory.add(conversationId, new AssistantMessage(responseContent));
@@ -120,16 +338,26 @@ public class ChatServiceImpl implements ChatService {
                 ChatMessage.MessageType.ASSISTANT,
                 responseContent
             );
+            assistantMessage.setTokenUsage(recordTokenUsage(session, modelResponse));
             session.addMessage(assistantMessage);
+            retainedMessages.incrementAndGet();
             
             // 更新会话
             sessionStore.put(sessionId, session);
+            expiryIndex.touch(sessionId, System.currentTimeMillis());
+            sessionWriter.markDirty(session);
             
             // 返回响应
-            return ChatResponse.fromChatMessage(assistantMessage);
+            ChatResponse response = ChatResponse.fromChatMessage(assistantMessage);
+            response.setSource(modelResponse != null ? ChatResponse.Source.MODEL : ChatResponse.Source.CACHE);
+            stopwatch.lap(ChatMetrics.STAGE_RESPONSE);
+            stopwatch.stop(true);
+            return response;
             
         } catch (Exception e) {
             logger.error("处理聊天请求时出错", e);
+            chatMetrics.recordError("chat", e);
+            stopwatch.stop(false);
             return ChatResponse.error(request.getSessionId(), "处理聊天请求时出错: " + e.getMessage());
         }
     }
@@ -147,7 +375,14 @@ public class ChatServiceImpl implements ChatService {
      * @param toolNames 要使用的工具名称列表
      * @return 聊天响应
      */
+    @Override
     public ChatResponse chatWithTools(ChatRequest request, List<String> toolNames) {
+        return turnGate.run(request.getSessionId(), "tools:" + request.getMessage(),
+                () -> doChatWithTools(request, toolNames));
+    }
+    
+    private ChatResponse doChatWithTools(ChatRequest request, List<String> toolNames) {
+        ChatMetrics.Stopwatch stopwatch = chatMetrics.start("chatWithTools");
         try {
             // 获取或创建会话
             String sessionId = request.getSessionId();
@@ -165,15 +400,33 @@ public class ChatServiceImpl implements ChatService {
                 request.getMessage()
             );
             session.addMessage(userMessage);
+            retainedMessages.incrementAndGet();
+            stopwatch.describe(sessionId, request.getMessage() != null ? request.getMessage().length() : 0,
+                    session.getMessageCount());
+            stopwatch.lap(ChatMetrics.STAGE_SESSION);
             
-            // 创建工具回调函数列表
-            List<String> functionNames = new ArrayList<>();
-            if (toolNames != null && !toolNames.isEmpty()) {
-                for (String toolName : toolNames) {
-                    if (toolManager.hasTool(toolName)) {
-                        functionNames.add(toolName);
-                    }
-                }
+            // 创建工具回调函数列表，同一工具组合的筛选结果由工具管理器缓存，工具启用状态变化时失效
+            List<String> functionNames = toolNames != null && !toolNames.isEmpty()
+                    ? toolManager.resolveTools(toolNames)
+                    : List.of();
+            
+            stopwatch.lap(ChatMetrics.STAGE_TOOL_RESOLVE);
+            
+            // 只需调用一次工具的意图直接执行工具并按模板回复，不经过模型
+            IntentMatcher.Match match = intentMatcher != null
+                    ? intentMatcher.match(request.getMessage(), functionNames) : null;
+            if (match != null) {
+                ToolResult toolResult = toolManager.executeTool(match.getToolName(), match.getParameters());
+                ChatResponse response = replyWithoutModel(session, request.getMessage(), match.render(toolResult),
+                        ChatResponse.Source.RULE);
+                stopwatch.lap(ChatMetrics.STAGE_RESPONSE);
+                stopwatch.stop(true);
+                return response;
+            }
+            
+            // 消息中带订单号等编号时在后台预取工具结果，与下面的模型调用并行
+            if (toolPrefetcher != null) {
+                toolPrefetcher.prefetch(request.getMessage(), functionNames);
             }
             
             // 使用Spring AI Alibaba生成响应，集成工具调用
@@ -183,22 +436,49 @@ public class ChatServiceImpl implements ChatService {
             int maxHistory = properties != null && properties.getChat() != null ? 
                              properties.getChat().getMaxHistory() : 20;
             
-            // 使用MessageChatMemoryAdvisor管理对话历史
-            MessageChatMemoryAdvisor advisor = new MessageChatMemoryAdvisor(chatMemory, conversationId, maxHistory);
+            // 添加用户消息到记忆，取出的历史已包含本轮消息
+            chatMemory.add(conversationId, new UserMessage(request.getMessage()));
+            List<Message> history = chatMemory.get(conversationId, maxHistory);
             
-            // 定义系统提示词
-            String systemPrompt = "你是一个智能助手，可以使用提供的工具来帮助用户回答问题。";
-            SystemPromptTemplate systemPromptTemplate = new SystemPromptTemplate(systemPrompt);
+            stopwatch.lap(ChatMetrics.STAGE_MEMORY);
             
             // 调用Spring AI Alibaba ChatClient生成响应，集成工具调用
-            String responseContent = chatClient
+            ModelRoute route = routeFor(request);
+            ChatClient client = clientFor(route);
+            // 模型的函数调用经工具管理器执行，可直接取得上面预取的结果
+            FunctionCallback[] functions = toolManager.getFunctionCallbacks(functionNames)
+                    .toArray(new FunctionCallback[0]);
+            Callable<org.springframework.ai.chat.model.ChatResponse> call = () -> client
                 .prompt()
-                .system(systemPromptTemplate.render())
-                .user(request.getMessage())
-                .advisors(advisor)
-                .functions(functionNames.toArray(new String[0]))
+                .system(toolSystemPrompt)
+                .messages(history)
+                .functions(functions)
                 .call()
-                .content();
+                .chatResponse();
+            long timeoutMillis = degradedResponder != null && degradedResponder.isEnabled()
+                    ? degradedResponder.getLatencyBudgetMillis()
+                    : properties.getResilience().getTimeoutMillis();
+            org.springframework.ai.chat.model.ChatResponse modelResponse;
+            try {
+                // 模型在调用中可能已经执行了提交退款等写操作，只有工具全部只读时才允许重试和对冲
+                modelResponse = isReadOnly(functionNames)
+                        ? callModel(route, timeoutMillis, call)
+                        : callModelOnce(route, timeoutMillis, call);
+            } catch (ModelCallException e) {
+                if (degradedResponder == null || !degradedResponder.shouldDegrade(e)) {
+                    throw e;
+                }
+                // 带工具的回答依赖本轮的工具结果，降级时不使用语义响应缓存
+                ChatResponse response = replyDegraded(session, request.getMessage(), false, e);
+                stopwatch.lap(ChatMetrics.STAGE_RESPONSE);
+                stopwatch.stop(true);
+                return response;
+            }
+            String responseContent = getContent(modelResponse);
+            stopwatch.lap(ChatMetrics.STAGE_MODEL);
+            
+            // 添加助手回复到记忆
+            chatMemory.add(conversationId, new AssistantMessage(responseContent));
             
             // 创建助手消息
             ChatMessage assistantMessage = new ChatMessage(
@@ -206,15 +486,25 @@ public class ChatServiceImpl implements ChatService {
                 ChatMessage.MessageType.ASSISTANT,
                 responseContent
             );
+            assistantMessage.setTokenUsage(recordTokenUsage(session, modelResponse));
             session.addMessage(assistantMessage);
+            retainedMessages.incrementAndGet();
             
             // 更新会话
             sessionStore.put(sessionId, session);
+            expiryIndex.touch(sessionId, System.currentTimeMillis());
+            sessionWriter.markDirty(session);
             
             // 返回响应
-            return ChatResponse.fromChatMessage(assistantMessage);
+            ChatResponse response = ChatResponse.fromChatMessage(assistantMessage);
+            response.setSource(ChatResponse.Source.MODEL);
+            stopwatch.lap(ChatMetrics.STAGE_RESPONSE);
+            stopwatch.stop(true);
+            return response;
             
         } catch (Exception e) {
+            chatMetrics.recordError("chatWithTools", e);
+            stopwatch.stop(false);
             return ChatResponse.error(request.getSessionId(), "处理带工具的聊天请求时出错: " + e.getMessage());
         }
     }
@@ -222,7 +512,26 @@ public class ChatServiceImpl implements ChatService {
     @Override
     @Cacheable(value = "chatSessions", key = "#sessionId")
     public ChatSession getSession(String sessionId) {
-        return sessionStore.get(sessionId);
+        ChatSession session = sessionStore.get(sessionId);
+        if (session != null) {
+            return session;
+        }
+        
+        // 内存中没有时从持久化存储加载
+        ChatSession loaded = sessionWriter.load(sessionId);
+        if (loaded == null) {
+            return null;
+        }
+        session = sessionStore.putIfAbsent(sessionId, loaded);
+        if (session != null) {
+            return session;
+        }
+        expiryIndex.touch(sessionId, System.currentTimeMillis());
+        retainedMessages.addAndGet(loaded.getMessageCount());
+        if (loaded.getUserId() != null) {
+            userSessions.computeIfAbsent(loaded.getUserId(), k -> new ArrayList<>()).add(sessionId);
+        }
+        return loaded;
     }
     
     @Override
@@ -240,9 +549,9 @@ public class ChatServiceImpl implements ChatService {
     
     @Override
     public ChatSession createSession(String userId, String title) {
-        String sessionId = UUID.randomUUID().toString();
+        // 会话ID只由ChatSession生成，存储、缓存和对话记忆都使用同一个ID
         ChatSession session = new ChatSession(userId, title);
-        session.setMessages(new ArrayList<>());
+        String sessionId = session.getSessionId();
         
         // 添加系统欢迎消息
         ChatMessage welcomeMessage = new ChatMessage(
@@ -251,9 +560,12 @@ public class ChatServiceImpl implements ChatService {
             "您好！我是智能客服助手，有什么可以帮助您的吗？"
         );
         session.addMessage(welcomeMessage);
+        retainedMessages.incrementAndGet();
         
         // 存储会话
         sessionStore.put(sessionId, session);
+        expiryIndex.touch(sessionId, System.currentTimeMillis());
+        sessionWriter.markDirty(session);
         
         // 更新用户会话列表 - 添加null检查
         if (userId != null) {
@@ -267,6 +579,13 @@ public class ChatServiceImpl implements ChatService {
     @CacheEvict(value = "chatSessions", key = "#sessionId")
     public boolean deleteSession(String sessionId) {
         ChatSession session = sessionStore.remove(sessionId);
+        expiryIndex.remove(sessionId);
+        sessionWriter.markDeleted(sessionId);
+        if (session != null) {
+            retainedMessages.addAndGet(-session.getMessageCount());
+            chatMemory.clear(sessionId);
+            tokenUsageTracker.removeSession(sessionId);
+        }
         if (session != null && session.getUserId() != null) {
             List<String> sessions = userSessions.get(session.getUserId());
             if (sessions != null) {
@@ -286,24 +605,247 @@ public class ChatServiceImpl implements ChatService {
         // 添加null检查
         long sessionTimeout = properties != null && properties.getChat() != null ? 
                              properties.getChat().getSessionTimeout() : 3600000;
-        LocalDateTime cutoffTime = LocalDateTime.now().minusSeconds(sessionTimeout / 1000);
+        cleanupTimer.record(() -> removeExpiredSessions(System.currentTimeMillis() - sessionTimeout));
+    }
+    
+    /**
+     * 清理截止时间之前最后活跃的会话
+     * 
+     * @param cutoffMillis 截止时间（毫秒）
+     */
+    private void removeExpiredSessions(long cutoffMillis) {
+        Cache sessionCache = cacheManager != null ? cacheManager.getCache("chatSessions") : null;
+        int removed = 0;
         
-        sessionStore.entrySet().removeIf(entry -> {
-            ChatSession session = entry.getValue();
-            if (session.getUpdatedAt().isBefore(cutoffTime)) {
-                // 从用户会话列表中移除
-                if (session.getUserId() != null) {
-                    List<String> sessions = userSessions.get(session.getUserId());
-                    if (sessions != null) {
-                        sessions.remove(entry.getKey());
-                        if (sessions.isEmpty()) {
-                            userSessions.remove(session.getUserId());
-                        }
+        for (String sessionId : expiryIndex.pollExpired(cutoffMillis)) {
+            ChatSession session = sessionStore.get(sessionId);
+            if (session == null) {
+                continue;
+            }
+            
+            // 会话可能在索引之外被更新过，以会话自身的更新时间为准
+            long updatedAt = toEpochMillis(session.getUpdatedAt());
+            if (updatedAt >= cutoffMillis) {
+                expiryIndex.touch(sessionId, updatedAt);
+                continue;
+            }
+            
+            if (!sessionStore.remove(sessionId, session)) {
+                continue;
+            }
+            removed++;
+            sessionWriter.markDeleted(sessionId);
+            retainedMessages.addAndGet(-session.getMessageCount());
+            chatMemory.clear(sessionId);
+            tokenUsageTracker.removeSession(sessionId);
+            if (sessionCache != null) {
+                sessionCache.evict(sessionId);
+            }
+            
+            // 从用户会话列表中移除
+            if (session.getUserId() != null) {
+                List<String> sessions = userSessions.get(session.getUserId());
+                if (sessions != null) {
+                    sessions.remove(sessionId);
+                    if (sessions.isEmpty()) {
+                        userSessions.remove(session.getUserId());
                     }
                 }
-                return true;
             }
-            return false;
-        });
+        }
+        
+        if (removed > 0) {
+            expiredSessionCounter.increment(removed);
+            logger.info("已清理过期会话: {}", removed);
+        }
+    }
+    
+    /**
+     * 按请求的模型参数选择路由
+     * 
+     * @param request 聊天请求
+     * @return 模型路由，未配置路由时返回null
+     */
+    private ModelRoute routeFor(ChatRequest request) {
+        return modelRouter != null ? modelRouter.route(request) : null;
+    }
+    
+    /**
+     * 获取路由对应的聊天客户端
+     * 
+     * @param route 模型路由
+     * @return 路由到的客户端，未配置路由时为默认客户端
+     */
+    private ChatClient clientFor(ModelRoute route) {
+        return route != null ? route.getChatClient() : chatClient;
+    }
+    
+    /**
+     * 调用模型，配置了容错执行器时带截止时间、重试、熔断和对冲
+     * 
+     * @param route 模型路由，用于区分熔断器
+     * @param call 模型调用
+     * @return 调用结果
+     */
+    private <T> T callModel(ModelRoute route, Callable<T> call) throws Exception {
+        if (modelCallExecutor == null) {
+            return call.call();
+        }
+        return modelCallExecutor.execute(route != null ? route.getModel() : DEFAULT_ENDPOINT, call);
+    }
+    
+    /**
+     * 在指定的截止时间内调用模型
+     * 
+     * @param route 模型路由，用于区分熔断器
+     * @param timeoutMillis 截止时间（毫秒）
+     * @param call 模型调用
+     * @return 调用结果
+     */
+    private <T> T callModel(ModelRoute route, long timeoutMillis, Callable<T> call) throws Exception {
+        if (modelCallExecutor == null) {
+            return call.call();
+        }
+        return modelCallExecutor.execute(route != null ? route.getModel() : DEFAULT_ENDPOINT, timeoutMillis, call);
+    }
+    
+    /**
+     * 只尝试一次调用模型，不重试、不对冲，超时也不中断，用于可能执行写操作工具的调用
+     * 
+     * @param route 模型路由，用于区分熔断器
+     * @param timeoutMillis 截止时间（毫秒）
+     * @param call 模型调用
+     * @return 调用结果
+     */
+    private <T> T callModelOnce(ModelRoute route, long timeoutMillis, Callable<T> call) throws Exception {
+        if (modelCallExecutor == null) {
+            return call.call();
+        }
+        return modelCallExecutor.executeOnce(route != null ? route.getModel() : DEFAULT_ENDPOINT, timeoutMillis, call);
+    }
+    
+    /**
+     * 判断工具是否全部只读
+     * 
+     * @param toolNames 工具名称列表
+     * @return 全部只读时返回true
+     */
+    private boolean isReadOnly(List<String> toolNames) {
+        for (String toolName : toolNames) {
+            Tool tool = toolManager.getTool(toolName);
+            if (tool == null || !tool.isReadOnly()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 不调用模型完成本轮对话，问答同样写入会话和对话记忆，后续轮次可以引用
+     * 
+     * @param session 聊天会话
+     * @param question 用户问题
+     * @param content 回答内容
+     * @param source 回答来源
+     * @return 聊天响应
+     */
+    private ChatResponse replyWithoutModel(ChatSession session, String question, String content,
+                                           ChatResponse.Source source) {
+        String sessionId = session.getSessionId();
+        chatMemory.add(sessionId, new UserMessage(question));
+        chatMemory.add(sessionId, new AssistantMessage(content));
+        return completeTurn(session, content, source);
+    }
+    
+    /**
+     * 模型不可用时用降级回复完成本轮对话，用户消息已在调用模型前写入对话记忆
+     * 
+     * @param session 聊天会话
+     * @param question 用户问题
+     * @param cacheable 本轮是否允许使用语义响应缓存
+     * @param e 模型调用异常
+     * @return 聊天响应
+     */
+    private ChatResponse replyDegraded(ChatSession session, String question, boolean cacheable,
+                                       ModelCallException e) {
+        DegradedResponder.Reply reply = degradedResponder.reply(question, cacheable, e.getReason());
+        logger.warn("模型不可用，使用降级回复: sessionId={}, reason={}, source={}",
+                session.getSessionId(), e.getReason(), reply.getSource());
+        
+        // 预设模板不是针对问题的回答，不写入对话记忆，避免后续轮次的模型把它当作上下文
+        if (reply.getSource() != ChatResponse.Source.TEMPLATE) {
+            chatMemory.add(session.getSessionId(), new AssistantMessage(reply.getContent()));
+        }
+        ChatResponse response = completeTurn(session, reply.getContent(), reply.getSource());
+        response.setDegraded(true);
+        return response;
+    }
+    
+    /**
+     * 把助手回复加入会话并更新会话索引
+     * 
+     * @param session 聊天会话
+     * @param content 回答内容
+     * @param source 回答来源
+     * @return 聊天响应
+     */
+    private ChatResponse completeTurn(ChatSession session, String content, ChatResponse.Source source) {
+        String sessionId = session.getSessionId();
+        ChatMessage assistantMessage = new ChatMessage(sessionId, ChatMessage.MessageType.ASSISTANT, content);
+        session.addMessage(assistantMessage);
+        retainedMessages.incrementAndGet();
+        
+        sessionStore.put(sessionId, session);
+        expiryIndex.touch(sessionId, System.currentTimeMillis());
+        sessionWriter.markDirty(session);
+        
+        ChatResponse response = ChatResponse.fromChatMessage(assistantMessage);
+        response.setSource(source);
+        return response;
+    }
+    
+    /**
+     * 从模型响应中取出回复内容
+     * 
+     * @param modelResponse 模型响应
+     * @return 回复内容，没有时返回null
+     */
+    private static String getContent(org.springframework.ai.chat.model.ChatResponse modelResponse) {
+        if (modelResponse == null) {
+            return null;
+        }
+        Generation generation = modelResponse.getResult();
+        return generation != null && generation.getOutput() != null ? generation.getOutput().getContent() : null;
+    }
+    
+    /**
+     * 从模型响应元数据中读取令牌用量并计入统计
+     * 
+     * @param session 聊天会话
+     * @param modelResponse 模型响应
+     * @return 消息的令牌用量，模型未返回用量时返回null
+     */
+    private ChatMessage.TokenUsage recordTokenUsage(ChatSession session,
+                                                    org.springframework.ai.chat.model.ChatResponse modelResponse) {
+        ChatResponseMetadata metadata = modelResponse != null ? modelResponse.getMetadata() : null;
+        Usage usage = metadata != null ? metadata.getUsage() : null;
+        if (usage == null) {
+            return null;
+        }
+        
+        long promptTokens = usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+        long generationTokens = usage.getGenerationTokens() != null ? usage.getGenerationTokens() : 0;
+        if (promptTokens == 0 && generationTokens == 0) {
+            return null;
+        }
+        
+        tokenUsageTracker.record(session.getUserId(), session.getSessionId(), metadata.getModel(),
+                promptTokens, generationTokens);
+        return new ChatMessage.TokenUsage((int) promptTokens, (int) generationTokens,
+                (int) (promptTokens + generationTokens));
+    }
+    
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,15 @@
 package com.smartcustom.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.smartcustom.util.IdGenerator;
+
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.UUID;
+import java.util.RandomAccess;
 
 /**
  * 聊天会话模型
@@ -15,6 +18,11 @@ import java.util.UUID;
  */
 public class ChatSession {
     
+    /**
+     * 保持未压缩的最近消息数，更早的长消息内容会被压缩
+     */
+    private static final int UNCOMPRESSED_RECENT_MESSAGES = 20;
+    
     /**
      * 会话ID
      */
@@ -31,9 +39,9 @@ public class ChatSession {
     private String title;
     
     /**
-     * 聊天消息列表
+     * 聊天消息（紧凑存储，会话ID由本会话提供），只追加，并发读写无需加锁
      */
-    private List<ChatMessage> messages;
+    private volatile MessageLog history;
     
     /**
      * 创建时间
@@ -45,7 +53,7 @@ public class ChatSession {
      * 更新时间
      */
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
-    private LocalDateTime updatedAt;
+    private volatile LocalDateTime updatedAt;
     
     /**
      * 是否活跃
@@ -53,8 +61,8 @@ public class ChatSession {
     private boolean active;
     
     public ChatSession() {
-        this.sessionId = UUID.randomUUID().toString();
-        this.messages = new ArrayList<>();
+        this.sessionId = IdGenerator.getInstance().nextCompactId();
+        this.history = new MessageLog();
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
         this.active = true;
@@ -93,13 +101,34 @@ public class ChatSession {
         this.title = title;
     }
     
+    /**
+     * 获取聊天消息的只读快照，元素在访问时由紧凑存储还原，
+     * 之后添加的消息不出现在快照中，可在并发添加消息时安全遍历和序列化
+     */
     @JsonProperty("messages")
     public List<ChatMessage> getMessages() {
-        return messages;
+        return new MessageView(history.snapshot(), sessionId);
     }
     
     public void setMessages(List<ChatMessage> messages) {
-        this.messages = messages;
+        MessageLog log = new MessageLog();
+        if (messages != null) {
+            for (ChatMessage message : messages) {
+                log.append(CompactChatMessage.from(message));
+            }
+        }
+        for (int i = 0; i < log.size() - UNCOMPRESSED_RECENT_MESSAGES; i++) {
+            log.get(i).compress();
+        }
+        this.history = log;
+    }
+    
+    /**
+     * 获取消息数
+     */
+    @JsonIgnore
+    public int getMessageCount() {
+        return history.size();
     }
     
     @JsonProperty("createdAt")
@@ -140,7 +169,43 @@ public class ChatSession {
      * 添加消息到会话
      */
     public void addMessage(ChatMessage message) {
-        this.messages.add(message);
+        MessageLog log = this.history;
+        int index = log.append(CompactChatMessage.from(message));
+        compressOlderMessages(log, index);
         updateTimestamp();
     }
+    
+    /**
+     * 压缩新消息加入后超出最近消息窗口的消息内容
+     */
+    private static void compressOlderMessages(MessageLog log, int newest) {
+        int oldest = newest - UNCOMPRESSED_RECENT_MESSAGES;
+        if (oldest >= 0) {
+            log.get(oldest).compress();
+        }
+    }
+    
+    /**
+     * 消息快照的只读视图
+     */
+    private static final class MessageView extends AbstractList<ChatMessage> implements RandomAccess {
+        
+        private final List<CompactChatMessage> snapshot;
+        private final String sessionId;
+        
+        private MessageView(List<CompactChatMessage> snapshot, String sessionId) {
+            this.snapshot = snapshot;
+            this.sessionId = sessionId;
+        }
+        
+        @Override
+        public ChatMessage get(int index) {
+            return snapshot.get(index).toChatMessage(sessionId);
+        }
+        
+        @Override
+        public int size() {
+            return snapshot.size();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.smartcustom.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 聊天会话持久化实体
+ * 
+ * 会话元数据单独成列，消息历史以JSON形式保存在payload中。
+ * 
+ * @author SmartCustom Team
+ */
+@Entity
+@Table(name = "chat_session", indexes = @Index(name = "idx_chat_session_user", columnList = "user_id"))
+public class ChatSessionEntity {
+    
+    /**
+     * 会话ID
+     */
+    @Id
+    @Column(name = "session_id", length = 64)
+    private String sessionId;
+    
+    /**
+     * 用户ID
+     */
+    @Column(name = "user_id", length = 64)
+    private String userId;
+    
+    /**
+     * 会话标题
+     */
+    @Column(name = "title")
+    private String title;
+    
+    /**
+     * 会话JSON
+     */
+    @Lob
+    @Column(name = "payload")
+    private String payload;
+    
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,14 @@
+package com.smartcustom.repository;
+
+import com.smartcustom.model.ChatSessionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 聊天会话仓库
+ * 
+ * @author SmartCustom Team
+ */
+@Repository
+public interface ChatSessionRepository extends JpaRepository<ChatSessionEntity, String> {
+}
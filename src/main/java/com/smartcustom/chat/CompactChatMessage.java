@@ -0,0 +1,210 @@
+package com.smartcustom.model;
+
+import com.smartcustom.util.IdGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 聊天消息的紧凑存储形式
+ *
+ * 会话历史中保留的消息以此形式存储：消息ID和时间戳使用long，令牌数使用基本类型，
+ * 不重复保存会话ID（由所属会话提供），较早的长消息内容可压缩保存。
+ * 通过{@link #toChatMessage(String)}还原为对外的{@link ChatMessage}。
+ *
+ * @author SmartCustom Team
+ */
+public final class CompactChatMessage {
+
+    /**
+     * 内容压缩的最小字节数
+     */
+    private static final int COMPRESSION_THRESHOLD = 256;
+
+    /**
+     * 没有令牌统计时的占位值
+     */
+    private static final int NO_TOKEN_USAGE = -1;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /**
+     * 紧凑格式的消息ID
+     */
+    private final long id;
+
+    /**
+     * 非紧凑格式的原始消息ID（通常为null）
+     */
+    private final String externalId;
+
+    private final long timestampMillis;
+    private final ChatMessage.MessageType type;
+    private final int promptTokens;
+    private final int generationTokens;
+    private final int totalTokens;
+
+    /**
+     * 消息内容：String，或压缩后的byte[]
+     */
+    private volatile Object content;
+
+    private volatile boolean read;
+
+    private CompactChatMessage(ChatMessage message) {
+        long parsedId = 0;
+        String rawId = message.getMessageId();
+        try {
+            parsedId = IdGenerator.fromCompactString(rawId);
+            rawId = null;
+        } catch (IllegalArgumentException e) {
+            // 保留无法压缩的外部消息ID
+        }
+        this.id = parsedId;
+        this.externalId = rawId;
+
+        LocalDateTime timestamp = message.getTimestamp();
+        this.timestampMillis = timestamp != null ? timestamp.atZone(ZONE).toInstant().toEpochMilli() : 0;
+        this.type = message.getType();
+        this.content = message.getContent();
+        this.read = message.isRead();
+
+        ChatMessage.TokenUsage tokenUsage = message.getTokenUsage();
+        if (tokenUsage != null) {
+            this.promptTokens = tokenUsage.getPromptTokens();
+            this.generationTokens = tokenUsage.getGenerationTokens();
+            this.totalTokens = tokenUsage.getTotalTokens();
+        } else {
+            this.promptTokens = NO_TOKEN_USAGE;
+            this.generationTokens = NO_TOKEN_USAGE;
+            this.totalTokens = NO_TOKEN_USAGE;
+        }
+    }
+
+    /**
+     * 从聊天消息创建紧凑形式
+     *
+     * @param message 聊天消息
+     * @return 紧凑消息
+     */
+    public static CompactChatMessage from(ChatMessage message) {
+        return new CompactChatMessage(message);
+    }
+
+    /**
+     * 还原为聊天消息
+     *
+     * @param sessionId 所属会话ID
+     * @return 聊天消息
+     */
+    public ChatMessage toChatMessage(String sessionId) {
+        LocalDateTime timestamp = timestampMillis != 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZONE)
+                : null;
+        ChatMessage message = new ChatMessage(getMessageId(), sessionId, type, getContent(), timestamp);
+        message.setRead(read);
+        if (promptTokens != NO_TOKEN_USAGE) {
+            message.setTokenUsage(new ChatMessage.TokenUsage(promptTokens, generationTokens, totalTokens));
+        }
+        return message;
+    }
+
+    public String getMessageId() {
+        return externalId != null ? externalId : IdGenerator.toCompactString(id);
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public ChatMessage.MessageType getType() {
+        return type;
+    }
+
+    public String getContent() {
+        Object current = content;
+        if (current instanceof byte[] bytes) {
+            return inflate(bytes);
+        }
+        return (String) current;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public void markAsRead() {
+        this.read = true;
+    }
+
+    /**
+     * 内容是否已压缩
+     *
+     * @return 是否已压缩
+     */
+    public boolean isCompressed() {
+        return content instanceof byte[];
+    }
+
+    /**
+     * 压缩消息内容，内容较短或压缩无收益时保持不变
+     */
+    public void compress() {
+        if (!(content instanceof String text)) {
+            return;
+        }
+
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < COMPRESSION_THRESHOLD) {
+            return;
+        }
+
+        byte[] compressed = deflate(raw);
+        if (compressed.length < raw.length) {
+            content = compressed;
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 3);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && inflater.needsInput()) {
+                    break;
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("消息内容解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
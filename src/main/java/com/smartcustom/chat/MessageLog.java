@@ -0,0 +1,130 @@
+package com.smartcustom.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 会话消息的只追加日志
+ *
+ * 消息按固定大小的分块存储，已写入的分块不会被移动或复制，追加和读取都不加锁：
+ * 追加方通过CAS占用消息数所指的空位，再推进消息数；发现空位已被占用时帮助推进消息数后重试，
+ * 任何一个追加方被挂起都不会阻塞其他追加方。
+ * 读取方先读取消息数，只访问该范围内已写入的消息，
+ * 因此{@link #snapshot()}得到的视图在并发追加时保持不变，可以安全遍历和序列化。
+ *
+ * @author SmartCustom Team
+ */
+final class MessageLog {
+
+    private static final int CHUNK_SHIFT = 4;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * 分块目录，扩容时复制目录本身，已有分块在新旧目录间共享
+     */
+    @SuppressWarnings("unchecked")
+    private final AtomicReference<AtomicReferenceArray<CompactChatMessage>[]> chunks =
+            new AtomicReference<>(new AtomicReferenceArray[0]);
+
+    /**
+     * 已写入（对读取方可见）的消息数
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 追加消息
+     *
+     * @param message 消息
+     * @return 消息在日志中的位置
+     */
+    int append(CompactChatMessage message) {
+        while (true) {
+            int index = size.get();
+            boolean claimed = chunkFor(index).compareAndSet(index & CHUNK_MASK, null, message);
+            // 无论空位由谁占用，都推进消息数，使读取方可见
+            size.compareAndSet(index, index + 1);
+            if (claimed) {
+                return index;
+            }
+        }
+    }
+
+    private AtomicReferenceArray<CompactChatMessage> chunkFor(int index) {
+        int chunkIndex = index >>> CHUNK_SHIFT;
+        while (true) {
+            AtomicReferenceArray<CompactChatMessage>[] current = chunks.get();
+            if (chunkIndex < current.length) {
+                return current[chunkIndex];
+            }
+            AtomicReferenceArray<CompactChatMessage>[] grown = Arrays.copyOf(current, chunkIndex + 1);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            }
+            chunks.compareAndSet(current, grown);
+        }
+    }
+
+    /**
+     * 获取消息数
+     *
+     * @return 消息数
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * 获取指定位置的消息
+     *
+     * @param index 位置
+     * @return 消息
+     */
+    CompactChatMessage get(int index) {
+        int current = size.get();
+        return element(chunks.get(), index, current);
+    }
+
+    /**
+     * 获取当前消息的只读快照，之后追加的消息不出现在快照中
+     *
+     * @return 消息快照
+     */
+    List<CompactChatMessage> snapshot() {
+        int current = size.get();
+        return new Snapshot(chunks.get(), current);
+    }
+
+    private static CompactChatMessage element(AtomicReferenceArray<CompactChatMessage>[] chunks, int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return chunks[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+    }
+
+    private static final class Snapshot extends AbstractList<CompactChatMessage> implements RandomAccess {
+
+        private final AtomicReferenceArray<CompactChatMessage>[] chunks;
+        private final int size;
+
+        private Snapshot(AtomicReferenceArray<CompactChatMessage>[] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public CompactChatMessage get(int index) {
+            return element(chunks, index, size);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
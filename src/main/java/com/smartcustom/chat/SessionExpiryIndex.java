@@ -0,0 +1,116 @@
+package com.smartcustom.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 会话过期索引
+ *
+ * 按最后活跃时间将会话划分到固定宽度的时间桶中，清理时只弹出已过期的桶，
+ * 无需遍历全部会话。会话再次活跃时会被移动到新的时间桶。
+ *
+ * @author SmartCustom Team
+ */
+public class SessionExpiryIndex {
+
+    /**
+     * 时间桶宽度（毫秒）
+     */
+    private final long tickMillis;
+
+    /**
+     * 时间桶 -> 该时间段内最后活跃的会话ID
+     */
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * 会话ID -> 当前所在时间桶
+     */
+    private final Map<String, Long> sessionBuckets = new ConcurrentHashMap<>();
+
+    public SessionExpiryIndex(long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("时间桶宽度必须大于0");
+        }
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * 记录会话活跃时间
+     *
+     * @param sessionId 会话ID
+     * @param timestampMillis 最后活跃时间（毫秒）
+     */
+    public void touch(String sessionId, long timestampMillis) {
+        long bucket = timestampMillis / tickMillis;
+        Long previous = sessionBuckets.put(sessionId, bucket);
+        if (previous != null && previous == bucket) {
+            return;
+        }
+
+        buckets.computeIfAbsent(bucket, k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        if (previous != null) {
+            removeFromBucket(previous, sessionId);
+        }
+    }
+
+    /**
+     * 从索引中移除会话
+     *
+     * @param sessionId 会话ID
+     */
+    public void remove(String sessionId) {
+        Long bucket = sessionBuckets.remove(sessionId);
+        if (bucket != null) {
+            removeFromBucket(bucket, sessionId);
+        }
+    }
+
+    /**
+     * 弹出所有在截止时间之前最后活跃的会话
+     *
+     * 只访问早于截止时间的时间桶，返回的会话会同时从索引中移除。
+     *
+     * @param cutoffMillis 截止时间（毫秒）
+     * @return 已过期的会话ID列表
+     */
+    public List<String> pollExpired(long cutoffMillis) {
+        long cutoffBucket = cutoffMillis / tickMillis;
+        List<String> expired = new ArrayList<>();
+
+        Map.Entry<Long, Set<String>> entry;
+        while ((entry = buckets.firstEntry()) != null && entry.getKey() < cutoffBucket) {
+            if (!buckets.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            for (String sessionId : entry.getValue()) {
+                // 会话在此期间可能已被移动到更新的时间桶
+                if (sessionBuckets.remove(sessionId, entry.getKey())) {
+                    expired.add(sessionId);
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 获取索引中的会话数
+     *
+     * @return 会话数
+     */
+    public int size() {
+        return sessionBuckets.size();
+    }
+
+    private void removeFromBucket(long bucket, String sessionId) {
+        // 空桶保留到清理时统一弹出，避免与并发的touch竞争
+        Set<String> sessionIds = buckets.get(bucket);
+        if (sessionIds != null) {
+            sessionIds.remove(sessionId);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.smartcustom.service.impl;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 会话轮次闸门
+ *
+ * 同一会话的对话轮次按到达顺序逐个执行，避免并发轮次交错写入会话和对话记忆。
+ * 客户端重复提交时，与正在等待或执行中的轮次消息完全相同的请求不再单独执行，
+ * 直接等待并返回前一个轮次的结果，只调用一次模型。
+ * 每个会话一把公平锁，按引用计数在没有轮次时移除，不同会话之间互不阻塞。
+ *
+ * @author SmartCustom Team
+ */
+public class SessionTurnGate {
+
+    private final Map<String, Gate> gates = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * 在会话上执行一个轮次
+     *
+     * @param sessionId 会话ID，为null时（新会话）直接执行
+     * @param key 轮次内容，相同内容的并发轮次合并为一次执行
+     * @param turn 轮次逻辑
+     * @return 轮次结果，被合并的轮次返回前一个轮次的结果
+     */
+    public <T> T run(String sessionId, String key, Supplier<T> turn) {
+        if (sessionId == null) {
+            return turn.get();
+        }
+
+        Gate gate = gates.compute(sessionId, (id, existing) -> {
+            Gate g = existing != null ? existing : new Gate();
+            g.refs++;
+            return g;
+        });
+        try {
+            CompletableFuture<Object> mine = new CompletableFuture<>();
+            CompletableFuture<Object> pending = key != null ? gate.pending.putIfAbsent(key, mine) : null;
+            if (pending != null) {
+                coalesced.increment();
+                return await(pending);
+            }
+
+            gate.lock.lock();
+            try {
+                T result = turn.get();
+                mine.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                if (key != null) {
+                    gate.pending.remove(key, mine);
+                }
+                gate.lock.unlock();
+            }
+        } finally {
+            gates.computeIfPresent(sessionId, (id, g) -> --g.refs == 0 ? null : g);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T await(CompletableFuture<Object> pending) {
+        try {
+            return (T) pending.join();
+        } catch (CompletionException e) {
+            // 与执行该轮的请求抛出同一个异常
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 获取被合并的轮次数
+     *
+     * @return 合并次数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 获取有轮次正在等待或执行的会话数
+     *
+     * @return 会话数
+     */
+    public int size() {
+        return gates.size();
+    }
+
+    /**
+     * 单个会话的锁和执行中的轮次
+     */
+    private static class Gate {
+
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final Map<String, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+
+        // 只在gates.compute中修改
+        private int refs;
+    }
+}
@@ -0,0 +1,265 @@
+package com.smartcustom.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.model.ChatSession;
+import com.smartcustom.model.ChatSessionEntity;
+import com.smartcustom.repository.ChatSessionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 会话写回缓冲
+ *
+ * 聊天过程中只标记会话已修改，同一会话的多次修改合并为一次写入；
+ * 由定时任务或待写入数量达到阈值时按批次在单个事务中写入数据库，
+ * 应用关闭时写完所有剩余会话。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class SessionWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionWriteBehind.class);
+
+    private final ChatSessionRepository repository;
+    private final ObjectMapper objectMapper;
+    private final SmartCustomProperties.Chat.Persistence config;
+    private final Executor backgroundExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    // 待写入的会话，按会话ID合并
+    private final Map<String, ChatSession> pendingWrites = new ConcurrentHashMap<>();
+    // 待删除的会话ID
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    @Autowired
+    public SessionWriteBehind(ChatSessionRepository repository, ObjectMapper objectMapper,
+                              SmartCustomProperties properties,
+                              @Qualifier("backgroundExecutor") Executor backgroundExecutor,
+                              PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.config = properties.getChat().getPersistence();
+        this.backgroundExecutor = backgroundExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 标记会话已修改
+     *
+     * @param session 聊天会话
+     */
+    public void markDirty(ChatSession session) {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        String sessionId = session.getSessionId();
+        pendingDeletes.remove(sessionId);
+        pendingWrites.put(sessionId, session);
+
+        if (pendingWrites.size() >= config.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+            try {
+                backgroundExecutor.execute(() -> {
+                    try {
+                        flush();
+                    } finally {
+                        flushRequested.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // 线程池繁忙时由定时任务写入
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * 标记会话已删除
+     *
+     * @param sessionId 会话ID
+     */
+    public void markDeleted(String sessionId) {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        pendingWrites.remove(sessionId);
+        pendingDeletes.add(sessionId);
+    }
+
+    /**
+     * 加载会话，优先返回尚未写入的会话
+     *
+     * @param sessionId 会话ID
+     * @return 聊天会话，不存在时返回null
+     */
+    public ChatSession load(String sessionId) {
+        if (!config.isEnabled() || sessionId == null) {
+            return null;
+        }
+
+        ChatSession pending = pendingWrites.get(sessionId);
+        if (pending != null) {
+            return pending;
+        }
+        if (pendingDeletes.contains(sessionId)) {
+            return null;
+        }
+
+        return repository.findById(sessionId)
+                .map(this::fromEntity)
+                .orElse(null);
+    }
+
+    /**
+     * 获取待写入的会话数
+     *
+     * @return 待写入的会话数
+     */
+    public int getPendingCount() {
+        return pendingWrites.size() + pendingDeletes.size();
+    }
+
+    /**
+     * 批量写入待写入的会话
+     */
+    @Scheduled(fixedDelayString = "${smartcustom.chat.persistence.flush-interval:1000}")
+    public void flush() {
+        if (!config.isEnabled() || !flushLock.tryLock()) {
+            return;
+        }
+
+        try {
+            while (writeBatch()) {
+                // 继续写入下一批
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 应用关闭时写完所有剩余会话
+     */
+    @PreDestroy
+    public void drain() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            while (getPendingCount() > 0 && writeBatch()) {
+                // 继续写入下一批
+            }
+            if (getPendingCount() > 0) {
+                logger.error("关闭时仍有会话未能写入: {}", getPendingCount());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 在单个事务中写入一批会话
+     *
+     * @return 是否写入了数据
+     */
+    private boolean writeBatch() {
+        int batchSize = Math.max(1, config.getBatchSize());
+
+        List<ChatSession> sessions = new ArrayList<>();
+        Iterator<Map.Entry<String, ChatSession>> writes = pendingWrites.entrySet().iterator();
+        while (writes.hasNext() && sessions.size() < batchSize) {
+            Map.Entry<String, ChatSession> entry = writes.next();
+            if (pendingWrites.remove(entry.getKey(), entry.getValue())) {
+                sessions.add(entry.getValue());
+            }
+        }
+
+        List<String> deletedIds = new ArrayList<>();
+        Iterator<String> deletes = pendingDeletes.iterator();
+        while (deletes.hasNext() && deletedIds.size() < batchSize) {
+            String sessionId = deletes.next();
+            if (pendingDeletes.remove(sessionId)) {
+                deletedIds.add(sessionId);
+            }
+        }
+
+        if (sessions.isEmpty() && deletedIds.isEmpty()) {
+            return false;
+        }
+
+        try {
+            List<ChatSessionEntity> entities = new ArrayList<>(sessions.size());
+            for (ChatSession session : sessions) {
+                entities.add(toEntity(session));
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!entities.isEmpty()) {
+                    repository.saveAll(entities);
+                }
+                if (!deletedIds.isEmpty()) {
+                    repository.deleteAllByIdInBatch(deletedIds);
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            logger.error("会话批量写入失败，将在下次重试: 写入{}个, 删除{}个", sessions.size(), deletedIds.size(), e);
+            // 重新排队，期间再次修改过的会话以最新状态为准
+            for (ChatSession session : sessions) {
+                pendingWrites.putIfAbsent(session.getSessionId(), session);
+            }
+            for (String sessionId : deletedIds) {
+                if (!pendingWrites.containsKey(sessionId)) {
+                    pendingDeletes.add(sessionId);
+                }
+            }
+            return false;
+        }
+    }
+
+    private ChatSessionEntity toEntity(ChatSession session) throws JsonProcessingException {
+        ChatSessionEntity entity = new ChatSessionEntity();
+        entity.setSessionId(session.getSessionId());
+        entity.setUserId(session.getUserId());
+        entity.setTitle(session.getTitle());
+        entity.setUpdatedAt(session.getUpdatedAt());
+        entity.setPayload(objectMapper.writeValueAsString(session));
+        return entity;
+    }
+
+    private ChatSession fromEntity(ChatSessionEntity entity) {
+        try {
+            return objectMapper.readValue(entity.getPayload(), ChatSession.class);
+        } catch (JsonProcessingException e) {
+            logger.error("会话数据解析失败: {}", entity.getSessionId(), e);
+            return null;
+        }
+    }
+}
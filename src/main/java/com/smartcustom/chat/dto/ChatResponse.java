@@ -20,6 +20,30 @@ public class ChatResponse {
         USER, ASSISTANT, SYSTEM, ERROR
     }
     
+    /**
+     * 回复来源枚举
+     */
+    public enum Source {
+        /**
+         * 模型生成
+         */
+        MODEL,
+        /**
+         * 响应缓存（语义缓存或提示词精确匹配缓存）
+         */
+        CACHE,
+        
+        /**
+         * 规则快速路径（直接调用工具）
+         */
+        RULE,
+        
+        /**
+         * 降级时的预设模板回复
+         */
+        TEMPLATE
+    }
+    
     /**
      * 会话ID
      */
@@ -69,6 +93,18 @@ public class ChatResponse {
     @JsonProperty("type")
     private MessageType type;
     
+    /**
+     * 回复来源
+     */
+    @JsonProperty("source")
+    private Source source;
+    
+    /**
+     * 是否为模型不可用时的降级回复
+     */
+    @JsonProperty("degraded")
+    private boolean degraded;
+    
     /**
      * 令牌使用情况内部类
      */
@@ -236,6 +272,23 @@ public class ChatResponse {
         this.type = type;
     }
     
+    @JsonProperty("source")
+    public Source getSource() {
+        return source;
+    }
+    
+    public void setSource(Source source) {
+        this.source = source;
+    }
+    
+    public boolean isDegraded() {
+        return degraded;
+    }
+    
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
+    
     public boolean isError() {
         return error != null && !error.isEmpty();
     }
@@ -1,11 +1,22 @@
 package com.smartcustom.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 异步配置类
@@ -16,17 +27,103 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
     
+    private static final String EXECUTOR_NAME = "taskExecutor";
+    
+    private static final String BACKGROUND_EXECUTOR_NAME = "backgroundExecutor";
+    
     /**
      * 配置异步任务执行器
+     * 
+     * 线程数和队列容量来自smartcustom.async配置。队列满时按overload-policy拒绝任务
+     * （由GlobalExceptionHandler返回429）或由调用线程执行。活跃线程数、排队数、完成数、
+     * 拒绝数和排队等待时间均有指标。
      */
-    @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    @Bean(name = EXECUTOR_NAME)
+    public Executor taskExecutor(SmartCustomProperties properties, MeterRegistry meterRegistry) {
+        SmartCustomProperties.Async config = properties.getAsync();
+        
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(25);
+        executor.setCorePoolSize(config.getCorePoolSize());
+        executor.setMaxPoolSize(config.getMaxPoolSize());
+        executor.setQueueCapacity(config.getQueueCapacity());
+        executor.setKeepAliveSeconds(config.getKeepAliveSeconds());
         executor.setThreadNamePrefix("SmartCustom-Async-");
+        executor.setTaskDecorator(queueWaitDecorator(EXECUTOR_NAME, meterRegistry));
+        executor.setRejectedExecutionHandler(overloadHandler(EXECUTOR_NAME, config.getOverloadPolicy(), meterRegistry));
+        executor.initialize();
+        
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), EXECUTOR_NAME, Tags.empty())
+                .bindTo(meterRegistry);
+        return executor;
+    }
+    
+    /**
+     * 配置后台任务执行器
+     * 
+     * 会话批量写回和工具结果预取等后台任务使用独立的小线程池，不与请求共用taskExecutor。
+     * 队列满时总是拒绝任务，由提交方放弃本次后台任务（写回留给定时任务，预取留给实际调用），
+     * 不受overload-policy影响，避免caller-runs时在请求线程上执行数据库写入或工具查询。
+     */
+    @Bean(name = BACKGROUND_EXECUTOR_NAME)
+    public Executor backgroundExecutor(SmartCustomProperties properties, MeterRegistry meterRegistry) {
+        SmartCustomProperties.Async config = properties.getAsync();
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(config.getBackgroundPoolSize());
+        executor.setMaxPoolSize(config.getBackgroundPoolSize());
+        executor.setQueueCapacity(config.getBackgroundQueueCapacity());
+        executor.setThreadNamePrefix("SmartCustom-Background-");
+        executor.setTaskDecorator(queueWaitDecorator(BACKGROUND_EXECUTOR_NAME, meterRegistry));
+        executor.setRejectedExecutionHandler(overloadHandler(BACKGROUND_EXECUTOR_NAME,
+                SmartCustomProperties.Async.OverloadPolicy.REJECT, meterRegistry));
         executor.initialize();
+        
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), BACKGROUND_EXECUTOR_NAME, Tags.empty())
+                .bindTo(meterRegistry);
         return executor;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 将调用线程的观测和追踪上下文带到异步线程，并记录任务排队等待时间
+     */
+    private static TaskDecorator queueWaitDecorator(String name, MeterRegistry meterRegistry) {
+        TaskDecorator contextDecorator = new ContextPropagatingTaskDecorator();
+        Timer queueWait = Timer.builder("smartcustom.executor.queue.wait")
+                .description("任务从提交到开始执行的等待时间")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        
+        return runnable -> {
+            Runnable decorated = contextDecorator.decorate(runnable);
+            long submittedNanos = System.nanoTime();
+            return () -> {
+                queueWait.record(System.nanoTime() - submittedNanos, TimeUnit.NANOSECONDS);
+                decorated.run();
+            };
+        };
+    }
+    
+    /**
+     * 线程池满时的处理策略，处理前先计数
+     */
+    private static RejectedExecutionHandler overloadHandler(String name,
+                                                            SmartCustomProperties.Async.OverloadPolicy policy,
+                                                            MeterRegistry meterRegistry) {
+        RejectedExecutionHandler delegate = policy == SmartCustomProperties.Async.OverloadPolicy.CALLER_RUNS
+                ? new ThreadPoolExecutor.CallerRunsPolicy()
+                : new ThreadPoolExecutor.AbortPolicy();
+        Counter rejected = Counter.builder("smartcustom.executor.rejected")
+                .description("线程池已满时被拒绝或由调用线程执行的任务数")
+                .tag("name", name)
+                .tag("policy", policy.name().toLowerCase())
+                .register(meterRegistry);
+        
+        return (runnable, threadPool) -> {
+            rejected.increment();
+            delegate.rejectedExecution(runnable, threadPool);
+        };
+    }
+}
@@ -1,8 +1,11 @@
 package com.smartcustom.config;
 
 import com.smartcustom.model.dto.ChatResponse;
+import com.smartcustom.ratelimit.RateLimitExceededException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -12,6 +15,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 全局异常处理器
@@ -23,6 +27,47 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
     
+    private final SmartCustomProperties properties;
+    
+    @Autowired
+    public GlobalExceptionHandler(SmartCustomProperties properties) {
+        this.properties = properties;
+    }
+    
+    /**
+     * 处理线程池已满导致的任务拒绝，返回429让客户端稍后重试
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleRejectedExecutionException(RejectedExecutionException e) {
+        // 过载时可能大量出现，不打印堆栈
+        logger.warn("任务被拒绝，系统繁忙: {}", e.getMessage());
+        
+        int retryAfterSeconds = properties.getAsync().getRetryAfterSeconds();
+        return tooManyRequests("系统繁忙，请" + retryAfterSeconds + "秒后重试", retryAfterSeconds);
+    }
+    
+    /**
+     * 处理用户限流和全局并发超限，返回429和Retry-After
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimitExceededException(RateLimitExceededException e) {
+        logger.debug("请求被限流: {}", e.getMessage());
+        return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
+    }
+    
+    private ResponseEntity<Map<String, Object>> tooManyRequests(String message, long retryAfterSeconds) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        response.put("error", "Too Many Requests");
+        response.put("message", message);
+        response.put("path", "");
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+    
     /**
      * 处理通用异常
      */
@@ -3,6 +3,11 @@ package com.smartcustom.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 智能客服系统自定义配置属性
  * 
@@ -27,6 +32,41 @@ public class SmartCustomProperties {
      */
     private Chat chat = new Chat();
     
+    /**
+     * 模型路由配置
+     */
+    private Routing routing = new Routing();
+    
+    /**
+     * 规则快速路径配置
+     */
+    private Intent intent = new Intent();
+    
+    /**
+     * 模型调用容错配置
+     */
+    private Resilience resilience = new Resilience();
+    
+    /**
+     * 异步线程池配置
+     */
+    private Async async = new Async();
+    
+    /**
+     * 限流配置
+     */
+    private RateLimit rateLimit = new RateLimit();
+    
+    /**
+     * 日志配置
+     */
+    private Logging logging = new Logging();
+    
+    /**
+     * 追踪配置
+     */
+    private Tracing tracing = new Tracing();
+    
     /**
      * API配置
      */
@@ -84,6 +124,16 @@ public class SmartCustomProperties {
          */
         private long timeout = 30000;
         
+        /**
+         * 只读工具结果缓存配置
+         */
+        private ResultCache resultCache = new ResultCache();
+        
+        /**
+         * 是否根据消息中的订单号、运单号、退款单号在模型调用期间预取工具结果
+         */
+        private boolean prefetch = true;
+        
         public boolean isEnabled() {
             return enabled;
         }
@@ -99,6 +149,63 @@ public class SmartCustomProperties {
         public void setTimeout(long timeout) {
             this.timeout = timeout;
         }
+        
+        public ResultCache getResultCache() {
+            return resultCache;
+        }
+        
+        public void setResultCache(ResultCache resultCache) {
+            this.resultCache = resultCache;
+        }
+        
+        public boolean isPrefetch() {
+            return prefetch;
+        }
+        
+        public void setPrefetch(boolean prefetch) {
+            this.prefetch = prefetch;
+        }
+        
+        public static class ResultCache {
+            /**
+             * 是否启用工具结果缓存
+             */
+            private boolean enabled = true;
+            
+            /**
+             * 结果有效期（秒），订单状态会变化，不宜过长
+             */
+            private long ttlSeconds = 30;
+            
+            /**
+             * 最大缓存条目数
+             */
+            private int maxEntries = 1000;
+            
+            public boolean isEnabled() {
+                return enabled;
+            }
+            
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+            
+            public long getTtlSeconds() {
+                return ttlSeconds;
+            }
+            
+            public void setTtlSeconds(long ttlSeconds) {
+                this.ttlSeconds = ttlSeconds;
+            }
+            
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+            
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
     }
     
     public static class Chat {
@@ -112,6 +219,26 @@ public class SmartCustomProperties {
          */
         private long sessionTimeout = 3600000;
         
+        /**
+         * 会话持久化配置
+         */
+        private Persistence persistence = new Persistence();
+        
+        /**
+         * 慢对话记录配置
+         */
+        private SlowTurn slowTurn = new SlowTurn();
+        
+        /**
+         * 语义响应缓存配置
+         */
+        private ResponseCache responseCache = new ResponseCache();
+        
+        /**
+         * 提示词精确匹配缓存配置
+         */
+        private PromptCache promptCache = new PromptCache();
+        
         public int getMaxHistory() {
             return maxHistory;
         }
@@ -127,112 +254,1287 @@ public class SmartCustomProperties {
         public void setSessionTimeout(long sessionTimeout) {
             this.sessionTimeout = sessionTimeout;
         }
-    }
-    
-    public static class Api {
-        /**
-         * API版本
-         */
-        private String version = "v1";
         
-        /**
-         * CORS配置
-         */
-        private Cors cors = new Cors();
+        public Persistence getPersistence() {
+            return persistence;
+        }
         
-        public String getVersion() {
-            return version;
+        public void setPersistence(Persistence persistence) {
+            this.persistence = persistence;
         }
         
-        public void setVersion(String version) {
-            this.version = version;
+        public SlowTurn getSlowTurn() {
+            return slowTurn;
         }
         
-        public Cors getCors() {
-            return cors;
+        public void setSlowTurn(SlowTurn slowTurn) {
+            this.slowTurn = slowTurn;
         }
         
-        public void setCors(Cors cors) {
-            this.cors = cors;
+        public ResponseCache getResponseCache() {
+            return responseCache;
         }
         
-        public static class Cors {
+        public void setResponseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+        }
+        
+        public PromptCache getPromptCache() {
+            return promptCache;
+        }
+        
+        public void setPromptCache(PromptCache promptCache) {
+            this.promptCache = promptCache;
+        }
+        
+        public static class Persistence {
             /**
-             * 允许的源
+             * 是否持久化会话
              */
-            private String[] allowedOrigins = {"*"};
+            private boolean enabled = true;
             
             /**
-             * 允许的方法
+             * 批量写入间隔（毫秒）
              */
-            private String[] allowedMethods = {"GET", "POST", "PUT", "DELETE", "OPTIONS"};
+            private long flushInterval = 1000;
             
             /**
-             * 允许的头部
+             * 单批最大会话数，待写入会话达到该数量时立即触发写入
              */
-            private String[] allowedHeaders = {"*"};
+            private int batchSize = 100;
+            
+            public boolean isEnabled() {
+                return enabled;
+            }
+            
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+            
+            public long getFlushInterval() {
+                return flushInterval;
+            }
+            
+            public void setFlushInterval(long flushInterval) {
+                this.flushInterval = flushInterval;
+            }
+            
+            public int getBatchSize() {
+                return batchSize;
+            }
             
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+        }
+        
+        public static class SlowTurn {
             /**
-             * 是否允许凭证
+             * 是否记录慢对话
              */
-            private boolean allowCredentials = true;
+            private boolean enabled = true;
             
-            public String[] getAllowedOrigins() {
-                return allowedOrigins;
+            /**
+             * 慢对话阈值（毫秒）
+             */
+            private long thresholdMillis = 5000;
+            
+            /**
+             * 保留的最近慢对话数
+             */
+            private int capacity = 100;
+            
+            /**
+             * 是否同时提交JFR事件
+             */
+            private boolean jfrEnabled = false;
+            
+            public boolean isEnabled() {
+                return enabled;
             }
             
-            public void setAllowedOrigins(String[] allowedOrigins) {
-                this.allowedOrigins = allowedOrigins;
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
             }
             
-            public String[] getAllowedMethods() {
-                return allowedMethods;
+            public long getThresholdMillis() {
+                return thresholdMillis;
             }
             
-            public void setAllowedMethods(String[] allowedMethods) {
-                this.allowedMethods = allowedMethods;
+            public void setThresholdMillis(long thresholdMillis) {
+                this.thresholdMillis = thresholdMillis;
             }
             
-            public String[] getAllowedHeaders() {
-                return allowedHeaders;
+            public int getCapacity() {
+                return capacity;
             }
             
-            public void setAllowedHeaders(String[] allowedHeaders) {
-                this.allowedHeaders = allowedHeaders;
+            public void setCapacity(int capacity) {
+                this.capacity = capacity;
             }
             
-            public boolean isAllowCredentials() {
-                return allowCredentials;
+            public boolean isJfrEnabled() {
+                return jfrEnabled;
             }
             
-            public void setAllowCredentials(boolean allowCredentials) {
-                this.allowCredentials = allowCredentials;
+            public void setJfrEnabled(boolean jfrEnabled) {
+                this.jfrEnabled = jfrEnabled;
+            }
+        }
+        
+        public static class ResponseCache {
+            /**
+             * 是否启用语义响应缓存
+             */
+            private boolean enabled = true;
+            
+            /**
+             * 命中所需的最低相似度（n-gram集合的Jaccard相似度，0到1）
+             */
+            private double similarityThreshold = 0.8;
+            
+            /**
+             * 缓存条目存活时间（秒）
+             */
+            private long ttlSeconds = 3600;
+            
+            /**
+             * 最大缓存条目数
+             */
+            private int maxEntries = 10000;
+            
+            /**
+             * 相似度计算使用的字符n-gram长度
+             */
+            private int shingleSize = 2;
+            
+            /**
+             * 归一化后参与缓存的最短问题长度（字符数）
+             */
+            private int minLength = 4;
+            
+            public boolean isEnabled() {
+                return enabled;
+            }
+            
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+            
+            public double getSimilarityThreshold() {
+                return similarityThreshold;
+            }
+            
+            public void setSimilarityThreshold(double similarityThreshold) {
+                this.similarityThreshold = similarityThreshold;
+            }
+            
+            public long getTtlSeconds() {
+                return ttlSeconds;
+            }
+            
+            public void setTtlSeconds(long ttlSeconds) {
+                this.ttlSeconds = ttlSeconds;
+            }
+            
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+            
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+            
+            public int getShingleSize() {
+                return shingleSize;
+            }
+            
+            public void setShingleSize(int shingleSize) {
+                this.shingleSize = shingleSize;
+            }
+            
+            public int getMinLength() {
+                return minLength;
+            }
+            
+            public void setMinLength(int minLength) {
+                this.minLength = minLength;
+            }
+        }
+        
+        public static class PromptCache {
+            /**
+             * 是否启用提示词精确匹配缓存
+             */
+            private boolean enabled = true;
+            
+            /**
+             * 缓存槽位数，向上取整为2的幂
+             */
+            private int maxEntries = 4096;
+            
+            /**
+             * 缓存条目存活时间（秒）
+             */
+            private long ttlSeconds = 600;
+            
+            /**
+             * 使用缓存的最高温度，默认只缓存温度为0的确定性请求
+             */
+            private double maxTemperature = 0.0;
+            
+            public boolean isEnabled() {
+                return enabled;
+            }
+            
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+            
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+            
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+            
+            public long getTtlSeconds() {
+                return ttlSeconds;
+            }
+            
+            public void setTtlSeconds(long ttlSeconds) {
+                this.ttlSeconds = ttlSeconds;
+            }
+            
+            public double getMaxTemperature() {
+                return maxTemperature;
+            }
+            
+            public void setMaxTemperature(double maxTemperature) {
+                this.maxTemperature = maxTemperature;
             }
         }
     }
     
-    public Plugin getPlugin() {
-        return plugin;
-    }
-    
-    public void setPlugin(Plugin plugin) {
-        this.plugin = plugin;
-    }
-    
-    public Tool getTool() {
-        return tool;
-    }
-    
-    public void setTool(Tool tool) {
-        this.tool = tool;
-    }
-    
-    public Chat getChat() {
-        return chat;
-    }
-    
-    public void setChat(Chat chat) {
-        this.chat = chat;
+    public static class Routing {
+        /**
+         * 是否按请求参数路由模型，关闭时所有请求使用默认客户端
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 默认模型，请求的模型不在允许列表中时使用
+         */
+        private String defaultModel = "gpt-3.5-turbo";
+        
+        /**
+         * 允许请求指定的模型，默认模型和快速模型总是允许
+         */
+        private String[] allowedModels = {};
+        
+        /**
+         * 简单意图使用的快速模型，为空时不做快速路由
+         */
+        private String fastModel;
+        
+        /**
+         * 判定为简单意图的最大消息长度
+         */
+        private int fastMaxLength = 20;
+        
+        /**
+         * 简单意图关键词，如问候、致谢、告别
+         */
+        private String[] fastKeywords = {"你好", "您好", "谢谢", "感谢", "再见", "拜拜", "在吗", "好的", "收到"};
+        
+        /**
+         * 请求可以指定的最大令牌数上限
+         */
+        private int maxTokensLimit = 4000;
+        
+        /**
+         * 客户端池最多保留的模型参数组合数
+         */
+        private int maxClients = 64;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public String getDefaultModel() {
+            return defaultModel;
+        }
+        
+        public void setDefaultModel(String defaultModel) {
+            this.defaultModel = defaultModel;
+        }
+        
+        public String[] getAllowedModels() {
+            return allowedModels;
+        }
+        
+        public void setAllowedModels(String[] allowedModels) {
+            this.allowedModels = allowedModels;
+        }
+        
+        public String getFastModel() {
+            return fastModel;
+        }
+        
+        public void setFastModel(String fastModel) {
+            this.fastModel = fastModel;
+        }
+        
+        public int getFastMaxLength() {
+            return fastMaxLength;
+        }
+        
+        public void setFastMaxLength(int fastMaxLength) {
+            this.fastMaxLength = fastMaxLength;
+        }
+        
+        public String[] getFastKeywords() {
+            return fastKeywords;
+        }
+        
+        public void setFastKeywords(String[] fastKeywords) {
+            this.fastKeywords = fastKeywords;
+        }
+        
+        public int getMaxTokensLimit() {
+            return maxTokensLimit;
+        }
+        
+        public void setMaxTokensLimit(int maxTokensLimit) {
+            this.maxTokensLimit = maxTokensLimit;
+        }
+        
+        public int getMaxClients() {
+            return maxClients;
+        }
+        
+        public void setMaxClients(int maxClients) {
+            this.maxClients = maxClients;
+        }
+    }
+    
+    public static class Intent {
+        /**
+         * 是否启用规则快速路径
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 参与识别的最大消息长度
+         */
+        private int maxLength = 60;
+        
+        /**
+         * 意图规则，按顺序匹配，第一条参数齐全的规则胜出
+         */
+        private List<Rule> rules = defaultRules();
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getMaxLength() {
+            return maxLength;
+        }
+        
+        public void setMaxLength(int maxLength) {
+            this.maxLength = maxLength;
+        }
+        
+        public List<Rule> getRules() {
+            return rules;
+        }
+        
+        public void setRules(List<Rule> rules) {
+            this.rules = rules;
+        }
+        
+        /**
+         * 内置规则：订单查询、退款进度查询、退款原因
+         */
+        private static List<Rule> defaultRules() {
+            Rule orderStatus = new Rule();
+            orderStatus.setName("order-status");
+            orderStatus.setTool("order-query");
+            orderStatus.setKeywords(new String[]{"订单", "物流", "快递", "发货", "到哪"});
+            orderStatus.setExcludeKeywords(new String[]{"退款", "退货", "发票", "取消", "修改"});
+            orderStatus.setPattern("ORD\\d{6,}");
+            orderStatus.setParameter("order_id");
+            orderStatus.setTemplate("${status_description}");
+            
+            Rule refundStatus = new Rule();
+            refundStatus.setName("refund-status");
+            refundStatus.setTool("refund");
+            refundStatus.setKeywords(new String[]{"退款"});
+            refundStatus.setPattern("REF[0-9A-Z]{13}");
+            refundStatus.setParameter("refund_id");
+            refundStatus.setParameters(Map.of("action", "query"));
+            refundStatus.setTemplate("${status_description}");
+            
+            Rule refundReasons = new Rule();
+            refundReasons.setName("refund-reasons");
+            refundReasons.setTool("refund");
+            refundReasons.setKeywords(new String[]{"退款原因", "退款理由"});
+            refundReasons.setParameters(Map.of("action", "get_reasons"));
+            refundReasons.setTemplate("可选的退款原因有：${reasons}。请问您属于哪一种情况？");
+            
+            return new ArrayList<>(List.of(orderStatus, refundStatus, refundReasons));
+        }
+        
+        public static class Rule {
+            /**
+             * 规则名称，用作指标标签
+             */
+            private String name;
+            
+            /**
+             * 要执行的工具名称
+             */
+            private String tool;
+            
+            /**
+             * 触发关键词，消息包含任意一个时规则成为候选，至少需要一个
+             */
+            private String[] keywords = {};
+            
+            /**
+             * 排除关键词，消息包含任意一个时不使用该规则
+             */
+            private String[] excludeKeywords = {};
+            
+            /**
+             * 从消息中提取参数的正则，为空时不需要提取
+             */
+            private String pattern;
+            
+            /**
+             * 正则提取结果对应的工具参数名
+             */
+            private String parameter;
+            
+            /**
+             * 固定的工具参数，如action
+             */
+            private Map<String, String> parameters = new HashMap<>();
+            
+            /**
+             * 回复模板，${name}取工具结果data中的同名字段
+             */
+            private String template = "${message}";
+            
+            public String getName() {
+                return name;
+            }
+            
+            public void setName(String name) {
+                this.name = name;
+            }
+            
+            public String getTool() {
+                return tool;
+            }
+            
+            public void setTool(String tool) {
+                this.tool = tool;
+            }
+            
+            public String[] getKeywords() {
+                return keywords;
+            }
+            
+            public void setKeywords(String[] keywords) {
+                this.keywords = keywords;
+            }
+            
+            public String[] getExcludeKeywords() {
+                return excludeKeywords;
+            }
+            
+            public void setExcludeKeywords(String[] excludeKeywords) {
+                this.excludeKeywords = excludeKeywords;
+            }
+            
+            public String getPattern() {
+                return pattern;
+            }
+            
+            public void setPattern(String pattern) {
+                this.pattern = pattern;
+            }
+            
+            public String getParameter() {
+                return parameter;
+            }
+            
+            public void setParameter(String parameter) {
+                this.parameter = parameter;
+            }
+            
+            public Map<String, String> getParameters() {
+                return parameters;
+            }
+            
+            public void setParameters(Map<String, String> parameters) {
+                this.parameters = parameters;
+            }
+            
+            public String getTemplate() {
+                return template;
+            }
+            
+            public void setTemplate(String template) {
+                this.template = template;
+            }
+        }
+    }
+    
+    public static class Resilience {
+        /**
+         * 是否启用模型调用容错（截止时间、重试、熔断、对冲）
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 一次模型调用（含重试）的截止时间（毫秒）
+         */
+        private long timeoutMillis = 30000;
+        
+        /**
+         * 单次尝试的超时时间（毫秒），超时后可以重试
+         */
+        private long attemptTimeoutMillis = 15000;
+        
+        /**
+         * 最大尝试次数，含第一次
+         */
+        private int maxAttempts = 3;
+        
+        /**
+         * 重试退避基准时间（毫秒），每次翻倍并在[0, 退避时间)内随机取值
+         */
+        private long initialBackoffMillis = 200;
+        
+        /**
+         * 重试退避上限（毫秒）
+         */
+        private long maxBackoffMillis = 2000;
+        
+        /**
+         * 熔断配置，每个模型一个熔断器
+         */
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        
+        /**
+         * 对冲请求配置
+         */
+        private Hedge hedge = new Hedge();
+        
+        /**
+         * 降级配置
+         */
+        private Degradation degradation = new Degradation();
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+        
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+        
+        public long getAttemptTimeoutMillis() {
+            return attemptTimeoutMillis;
+        }
+        
+        public void setAttemptTimeoutMillis(long attemptTimeoutMillis) {
+            this.attemptTimeoutMillis = attemptTimeoutMillis;
+        }
+        
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+        
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+        
+        public long getInitialBackoffMillis() {
+            return initialBackoffMillis;
+        }
+        
+        public void setInitialBackoffMillis(long initialBackoffMillis) {
+            this.initialBackoffMillis = initialBackoffMillis;
+        }
+        
+        public long getMaxBackoffMillis() {
+            return maxBackoffMillis;
+        }
+        
+        public void setMaxBackoffMillis(long maxBackoffMillis) {
+            this.maxBackoffMillis = maxBackoffMillis;
+        }
+        
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+        
+        public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+        }
+        
+        public Hedge getHedge() {
+            return hedge;
+        }
+        
+        public void setHedge(Hedge hedge) {
+            this.hedge = hedge;
+        }
+        
+        public Degradation getDegradation() {
+            return degradation;
+        }
+        
+        public void setDegradation(Degradation degradation) {
+            this.degradation = degradation;
+        }
+        
+        public static class CircuitBreaker {
+            /**
+             * 打开熔断的失败率（百分比）
+             */
+            private int failureRateThreshold = 50;
+            
+            /**
+             * 统计失败率的最近调用数
+             */
+            private int slidingWindowSize = 20;
+            
+            /**
+             * 计算失败率前至少需要的调用数
+             */
+            private int minimumCalls = 10;
+            
+            /**
+             * 打开后到允许探测的冷却时间（毫秒）
+             */
+            private long openDurationMillis = 30000;
+            
+            /**
+             * 半开状态放行的探测调用数
+             */
+            private int halfOpenCalls = 3;
+            
+            public int getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+            
+            public void setFailureRateThreshold(int failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+            
+            public int getSlidingWindowSize() {
+                return slidingWindowSize;
+            }
+            
+            public void setSlidingWindowSize(int slidingWindowSize) {
+                this.slidingWindowSize = slidingWindowSize;
+            }
+            
+            public int getMinimumCalls() {
+                return minimumCalls;
+            }
+            
+            public void setMinimumCalls(int minimumCalls) {
+                this.minimumCalls = minimumCalls;
+            }
+            
+            public long getOpenDurationMillis() {
+                return openDurationMillis;
+            }
+            
+            public void setOpenDurationMillis(long openDurationMillis) {
+                this.openDurationMillis = openDurationMillis;
+            }
+            
+            public int getHalfOpenCalls() {
+                return halfOpenCalls;
+            }
+            
+            public void setHalfOpenCalls(int halfOpenCalls) {
+                this.halfOpenCalls = halfOpenCalls;
+            }
+        }
+        
+        public static class Hedge {
+            /**
+             * 是否启用对冲请求，启用后慢请求会多消耗一次令牌
+             */
+            private boolean enabled = false;
+            
+            /**
+             * 计算p95前至少需要的成功调用数
+             */
+            private int minSamples = 100;
+            
+            /**
+             * 对冲延迟下限（毫秒），实际延迟取该值与p95中的较大者
+             */
+            private long minDelayMillis = 500;
+            
+            public boolean isEnabled() {
+                return enabled;
+            }
+            
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+            
+            public int getMinSamples() {
+                return minSamples;
+            }
+            
+            public void setMinSamples(int minSamples) {
+                this.minSamples = minSamples;
+            }
+            
+            public long getMinDelayMillis() {
+                return minDelayMillis;
+            }
+            
+            public void setMinDelayMillis(long minDelayMillis) {
+                this.minDelayMillis = minDelayMillis;
+            }
+        }
+        
+        public static class Degradation {
+            /**
+             * 是否在熔断打开、超时或模型不可用时降级回复
+             */
+            private boolean enabled = true;
+            
+            /**
+             * 启用降级时模型调用的延迟预算（毫秒），超过后改为降级回复
+             */
+            private long latencyBudgetMillis = 10000;
+            
+            /**
+             * 没有模板匹配时的默认回复
+             */
+            private String defaultAnswer = "抱歉，当前咨询量较大，智能助手暂时无法详细回答您的问题，请稍后再试或转接人工客服。";
+            
+            /**
+             * 预设回复模板，按顺序匹配，消息包含任意一个关键词即使用该模板
+             */
+            private List<Template> templates = defaultTemplates();
+            
+            public boolean isEnabled() {
+                return enabled;
+            }
+            
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+            
+            public long getLatencyBudgetMillis() {
+                return latencyBudgetMillis;
+            }
+            
+            public void setLatencyBudgetMillis(long latencyBudgetMillis) {
+                this.latencyBudgetMillis = latencyBudgetMillis;
+            }
+            
+            public String getDefaultAnswer() {
+                return defaultAnswer;
+            }
+            
+            public void setDefaultAnswer(String defaultAnswer) {
+                this.defaultAnswer = defaultAnswer;
+            }
+            
+            public List<Template> getTemplates() {
+                return templates;
+            }
+            
+            public void setTemplates(List<Template> templates) {
+                this.templates = templates;
+            }
+            
+            /**
+             * 内置模板：退款、物流、发票
+             */
+            private static List<Template> defaultTemplates() {
+                Template refund = new Template();
+                refund.setKeywords(new String[]{"退款", "退货", "退钱"});
+                refund.setAnswer("退款审核通过后，款项一般在1-3个工作日内原路退回。" +
+                        "如需查询具体进度，请提供退款单号，或稍后再试。");
+                
+                Template logistics = new Template();
+                logistics.setKeywords(new String[]{"物流", "快递", "发货", "到哪"});
+                logistics.setAnswer("订单发货后可以在订单详情页查看物流信息。" +
+                        "如需查询具体订单，请提供订单号，或稍后再试。");
+                
+                Template invoice = new Template();
+                invoice.setKeywords(new String[]{"发票"});
+                invoice.setAnswer("订单完成后可以在订单详情页申请电子发票，开具后会发送到您的邮箱。");
+                
+                return new ArrayList<>(List.of(refund, logistics, invoice));
+            }
+            
+            public static class Template {
+                /**
+                 * 触发关键词
+                 */
+                private String[] keywords = {};
+                
+                /**
+                 * 回复内容
+                 */
+                private String answer;
+                
+                public String[] getKeywords() {
+                    return keywords;
+                }
+                
+                public void setKeywords(String[] keywords) {
+                    this.keywords = keywords;
+                }
+                
+                public String getAnswer() {
+                    return answer;
+                }
+                
+                public void setAnswer(String answer) {
+                    this.answer = answer;
+                }
+            }
+        }
+    }
+    
+    public static class Async {
+        /**
+         * 核心线程数
+         */
+        private int corePoolSize = 5;
+        
+        /**
+         * 最大线程数
+         */
+        private int maxPoolSize = 10;
+        
+        /**
+         * 队列容量
+         */
+        private int queueCapacity = 25;
+        
+        /**
+         * 空闲线程存活时间（秒）
+         */
+        private int keepAliveSeconds = 60;
+        
+        /**
+         * 线程池满时的处理策略
+         */
+        private OverloadPolicy overloadPolicy = OverloadPolicy.REJECT;
+        
+        /**
+         * 拒绝时建议客户端重试的等待时间（秒），通过Retry-After响应头返回
+         */
+        private int retryAfterSeconds = 1;
+        
+        /**
+         * 后台任务（会话写回、工具预取）线程数
+         */
+        private int backgroundPoolSize = 2;
+        
+        /**
+         * 后台任务队列容量，满时放弃新的后台任务
+         */
+        private int backgroundQueueCapacity = 50;
+        
+        public int getCorePoolSize() {
+            return corePoolSize;
+        }
+        
+        public void setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+        
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+        
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+        
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+        
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+        
+        public int getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+        
+        public void setKeepAliveSeconds(int keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+        
+        public OverloadPolicy getOverloadPolicy() {
+            return overloadPolicy;
+        }
+        
+        public void setOverloadPolicy(OverloadPolicy overloadPolicy) {
+            this.overloadPolicy = overloadPolicy;
+        }
+        
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+        
+        public void setRetryAfterSeconds(int retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+        
+        public int getBackgroundPoolSize() {
+            return backgroundPoolSize;
+        }
+        
+        public void setBackgroundPoolSize(int backgroundPoolSize) {
+            this.backgroundPoolSize = backgroundPoolSize;
+        }
+        
+        public int getBackgroundQueueCapacity() {
+            return backgroundQueueCapacity;
+        }
+        
+        public void setBackgroundQueueCapacity(int backgroundQueueCapacity) {
+            this.backgroundQueueCapacity = backgroundQueueCapacity;
+        }
+        
+        /**
+         * 线程池满时的处理策略
+         */
+        public enum OverloadPolicy {
+            /**
+             * 拒绝任务，接口返回429并带Retry-After
+             */
+            REJECT,
+            /**
+             * 由提交任务的线程直接执行，请求变慢但不失败
+             */
+            CALLER_RUNS
+        }
+    }
+    
+    public static class RateLimit {
+        /**
+         * 是否启用限流
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 每个用户每秒补充的请求数
+         */
+        private double requestsPerSecond = 1.0;
+        
+        /**
+         * 每个用户允许的突发请求数
+         */
+        private int burst = 5;
+        
+        /**
+         * 最多跟踪的用户数，超出后新用户共用一个令牌桶
+         */
+        private int maxTrackedUsers = 100000;
+        
+        /**
+         * 全局同时处理的聊天请求数
+         */
+        private int maxConcurrent = 50;
+        
+        /**
+         * 全局并发已满时允许排队等待的请求数
+         */
+        private int maxQueue = 20;
+        
+        /**
+         * 排队等待的最长时间（毫秒）
+         */
+        private long queueTimeoutMillis = 200;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public double getRequestsPerSecond() {
+            return requestsPerSecond;
+        }
+        
+        public void setRequestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+        
+        public int getBurst() {
+            return burst;
+        }
+        
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+        
+        public int getMaxTrackedUsers() {
+            return maxTrackedUsers;
+        }
+        
+        public void setMaxTrackedUsers(int maxTrackedUsers) {
+            this.maxTrackedUsers = maxTrackedUsers;
+        }
+        
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+        
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+        
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+        
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+        
+        public long getQueueTimeoutMillis() {
+            return queueTimeoutMillis;
+        }
+        
+        public void setQueueTimeoutMillis(long queueTimeoutMillis) {
+            this.queueTimeoutMillis = queueTimeoutMillis;
+        }
+    }
+    
+    public static class Logging {
+        /**
+         * 高频日志采样比例，每sampleRate条输出1条，由logback-spring.xml读取
+         */
+        private int sampleRate = 1;
+        
+        public int getSampleRate() {
+            return sampleRate;
+        }
+        
+        public void setSampleRate(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+    }
+    
+    public static class Tracing {
+        /**
+         * 是否将span输出到日志
+         */
+        private boolean logSpans = false;
+        
+        public boolean isLogSpans() {
+            return logSpans;
+        }
+        
+        public void setLogSpans(boolean logSpans) {
+            this.logSpans = logSpans;
+        }
+    }
+    
+    public static class Api {
+        /**
+         * API版本
+         */
+        private String version = "v1";
+        
+        /**
+         * CORS配置
+         */
+        private Cors cors = new Cors();
+        
+        public String getVersion() {
+            return version;
+        }
+        
+        public void setVersion(String version) {
+            this.version = version;
+        }
+        
+        public Cors getCors() {
+            return cors;
+        }
+        
+        public void setCors(Cors cors) {
+            this.cors = cors;
+        }
+        
+        public static class Cors {
+            /**
+             * 允许的源
+             */
+            private String[] allowedOrigins = {"*"};
+            
+            /**
+             * 允许的方法
+             */
+            private String[] allowedMethods = {"GET", "POST", "PUT", "DELETE", "OPTIONS"};
+            
+            /**
+             * 允许的头部
+             */
+            private String[] allowedHeaders = {"*"};
+            
+            /**
+             * 是否允许凭证
+             */
+            private boolean allowCredentials = true;
+            
+            public String[] getAllowedOrigins() {
+                return allowedOrigins;
+            }
+            
+            public void setAllowedOrigins(String[] allowedOrigins) {
+                this.allowedOrigins = allowedOrigins;
+            }
+            
+            public String[] getAllowedMethods() {
+                return allowedMethods;
+            }
+            
+            public void setAllowedMethods(String[] allowedMethods) {
+                this.allowedMethods = allowedMethods;
+            }
+            
+            public String[] getAllowedHeaders() {
+                return allowedHeaders;
+            }
+            
+            public void setAllowedHeaders(String[] allowedHeaders) {
+                this.allowedHeaders = allowedHeaders;
+            }
+            
+            public boolean isAllowCredentials() {
+                return allowCredentials;
+            }
+            
+            public void setAllowCredentials(boolean allowCredentials) {
+                this.allowCredentials = allowCredentials;
+            }
+        }
+    }
+    
+    public Plugin getPlugin() {
+        return plugin;
+    }
+    
+    public void setPlugin(Plugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    public Tool getTool() {
+        return tool;
+    }
+    
+    public void setTool(Tool tool) {
+        this.tool = tool;
+    }
+    
+    public Chat getChat() {
+        return chat;
+    }
+    
+    public void setChat(Chat chat) {
+        this.chat = chat;
+    }
+    
+    public Routing getRouting() {
+        return routing;
+    }
+    
+    public void setRouting(Routing routing) {
+        this.routing = routing;
+    }
+    
+    public Intent getIntent() {
+        return intent;
+    }
+    
+    public void setIntent(Intent intent) {
+        this.intent = intent;
+    }
+    
+    public Resilience getResilience() {
+        return resilience;
+    }
+    
+    public void setResilience(Resilience resilience) {
+        this.resilience = resilience;
+    }
+    
+    public Async getAsync() {
+        return async;
+    }
+    
+    public void setAsync(Async async) {
+        this.async = async;
+    }
+    
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+    
+    public void setRateLimit(RateLimit rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+    
+    public Logging getLogging() {
+        return logging;
+    }
+    
+    public void setLogging(Logging logging) {
+        this.logging = logging;
+    }
+    
+    public Tracing getTracing() {
+        return tracing;
+    }
+    
+    public void setTracing(Tracing tracing) {
+        this.tracing = tracing;
     }
     
     public Api getApi() {
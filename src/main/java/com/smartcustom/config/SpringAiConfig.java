@@ -14,6 +14,16 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class SpringAiConfig {
     
+    /**
+     * 聊天客户端的默认系统提示词
+     */
+    public static final String DEFAULT_SYSTEM_PROMPT = "你是一个智能客服助手，负责回答用户的问题并提供帮助。";
+    
+    /**
+     * 带工具对话的系统提示词
+     */
+    public static final String TOOL_SYSTEM_PROMPT = "你是一个智能助手，可以使用提供的工具来帮助用户回答问题。";
+    
     /**
      * 配置聊天内存
      */
@@ -28,7 +38,7 @@ public class SpringAiConfig {
     @Bean
     public ChatClient chatClient(ChatClient.Builder builder) {
         return builder
-                .defaultSystem("你是一个智能客服助手，负责回答用户的问题并提供帮助。")
+                .defaultSystem(DEFAULT_SYSTEM_PROMPT)
                 .build();
     }
 }
\ No newline at end of file
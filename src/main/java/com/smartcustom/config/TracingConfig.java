@@ -0,0 +1,26 @@
+package com.smartcustom.config;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 链路追踪配置类
+ * 
+ * 请求经HTTP观测自动生成根span，聊天各阶段、模型调用和工具执行的span挂在其下。
+ * 
+ * @author SmartCustom Team
+ */
+@Configuration
+public class TracingConfig {
+    
+    /**
+     * 将span输出到日志，离线环境下无需外部收集器即可查看调用链
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "smartcustom.tracing", name = "log-spans", havingValue = "true")
+    public LoggingSpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
@@ -0,0 +1,181 @@
+package com.smartcustom.intent;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.tool.ToolResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于规则的意图识别
+ *
+ * 识别只需要调用一次工具就能回答的消息，如带订单号的订单查询、询问退款原因，
+ * 由调用方直接执行工具并按模板生成回复，不经过模型。
+ * 所有规则的关键词合并为一个{@link KeywordAutomaton}，对消息扫描一遍即可得到候选规则，
+ * 再按配置顺序用预编译的正则提取订单号等参数，第一个参数齐全的规则胜出。
+ * 较长的消息往往包含多个诉求，超过长度上限时不做识别。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class IntentMatcher {
+
+    private final SmartCustomProperties.Intent config;
+    private final List<CompiledRule> rules = new ArrayList<>();
+    private final KeywordAutomaton automaton;
+
+    // 关键词下标到规则下标的映射，排除词记为负数：-(规则下标 + 1)
+    private final int[] keywordOwners;
+
+    @Autowired
+    public IntentMatcher(SmartCustomProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getIntent();
+
+        List<String> keywords = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (SmartCustomProperties.Intent.Rule rule : config.getRules()) {
+            int index = rules.size();
+            rules.add(new CompiledRule(rule, meterRegistry));
+            for (String keyword : rule.getKeywords()) {
+                keywords.add(keyword);
+                owners.add(index);
+            }
+            for (String keyword : rule.getExcludeKeywords()) {
+                keywords.add(keyword);
+                owners.add(-(index + 1));
+            }
+        }
+        this.automaton = new KeywordAutomaton(keywords);
+        this.keywordOwners = owners.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 识别消息意图
+     *
+     * @param message 用户消息
+     * @param availableTools 本轮可以使用的工具
+     * @return 匹配结果，没有规则匹配时返回null
+     */
+    public Match match(String message, Collection<String> availableTools) {
+        if (!config.isEnabled() || message == null || message.length() > config.getMaxLength() || rules.isEmpty()) {
+            return null;
+        }
+
+        BitSet matchedKeywords = automaton.match(message);
+        BitSet candidates = new BitSet(rules.size());
+        BitSet excluded = new BitSet(rules.size());
+        for (int i = matchedKeywords.nextSetBit(0); i >= 0; i = matchedKeywords.nextSetBit(i + 1)) {
+            int owner = keywordOwners[i];
+            if (owner >= 0) {
+                candidates.set(owner);
+            } else {
+                excluded.set(-owner - 1);
+            }
+        }
+        candidates.andNot(excluded);
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            CompiledRule rule = rules.get(i);
+            if (!availableTools.contains(rule.tool)) {
+                continue;
+            }
+            Map<String, Object> parameters = rule.parameters(message);
+            if (parameters != null) {
+                rule.matches.increment();
+                return new Match(rule, parameters);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 编译后的规则
+     */
+    private static class CompiledRule {
+
+        private final String name;
+        private final String tool;
+        private final Pattern pattern;
+        private final String parameter;
+        private final Map<String, String> fixedParameters;
+        private final ResponseTemplate template;
+        private final Counter matches;
+
+        private CompiledRule(SmartCustomProperties.Intent.Rule rule, MeterRegistry meterRegistry) {
+            this.name = rule.getName();
+            this.tool = rule.getTool();
+            this.pattern = rule.getPattern() != null ? Pattern.compile(rule.getPattern(), Pattern.CASE_INSENSITIVE) : null;
+            this.parameter = rule.getParameter();
+            this.fixedParameters = rule.getParameters();
+            this.template = new ResponseTemplate(rule.getTemplate());
+            this.matches = Counter.builder("smartcustom.intent.matches")
+                    .description("规则快速路径命中次数")
+                    .tag("rule", rule.getName())
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 生成工具参数
+         *
+         * @return 工具参数，规则要求的参数无法从消息中提取时返回null
+         */
+        private Map<String, Object> parameters(String message) {
+            Map<String, Object> parameters = new HashMap<>(fixedParameters);
+            if (pattern != null) {
+                Matcher matcher = pattern.matcher(message);
+                if (!matcher.find()) {
+                    return null;
+                }
+                parameters.put(parameter, matcher.group().toUpperCase(Locale.ROOT));
+            }
+            return parameters;
+        }
+    }
+
+    /**
+     * 意图匹配结果
+     */
+    public static class Match {
+
+        private final CompiledRule rule;
+        private final Map<String, Object> parameters;
+
+        private Match(CompiledRule rule, Map<String, Object> parameters) {
+            this.rule = rule;
+            this.parameters = parameters;
+        }
+
+        public String getRuleName() {
+            return rule.name;
+        }
+
+        public String getToolName() {
+            return rule.tool;
+        }
+
+        public Map<String, Object> getParameters() {
+            return parameters;
+        }
+
+        /**
+         * 按规则模板把工具结果渲染为回复
+         *
+         * @param result 工具执行结果
+         * @return 回复内容
+         */
+        public String render(ToolResult result) {
+            return rule.template.render(result);
+        }
+    }
+}
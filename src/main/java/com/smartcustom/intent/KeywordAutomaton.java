@@ -0,0 +1,127 @@
+package com.smartcustom.intent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * 多关键词匹配自动机（Aho-Corasick）
+ *
+ * 构建时把所有关键词合并为一棵带失败指针的字典树，匹配时只需对文本扫描一遍，
+ * 耗时与文本长度成正比，与关键词数量无关。构建完成后转为只读数组，可以被多个线程同时使用。
+ * 匹配不区分大小写。
+ *
+ * @author SmartCustom Team
+ */
+final class KeywordAutomaton {
+
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[][] outputs;
+
+    /**
+     * @param keywords 关键词列表，匹配结果为关键词在列表中的下标
+     */
+    KeywordAutomaton(List<String> keywords) {
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        for (int i = 0; i < keywords.size(); i++) {
+            String keyword = keywords.get(i).toLowerCase(Locale.ROOT);
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int j = 0; j < keyword.length(); j++) {
+                Integer next = children.get(node).get(keyword.charAt(j));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    children.get(node).put(keyword.charAt(j), next);
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(i);
+        }
+
+        int size = children.size();
+        this.edgeChars = new char[size][];
+        this.edgeTargets = new int[size][];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> edges = children.get(node);
+            edgeChars[node] = new char[edges.size()];
+            edgeTargets[node] = new int[edges.size()];
+            int k = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][k] = edge.getKey();
+                edgeTargets[node][k] = edge.getValue();
+                k++;
+            }
+        }
+
+        // 按层次遍历计算失败指针，并把失败指针所指节点的输出并入当前节点
+        this.fail = new int[size];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int k = 0; k < edgeChars[node].length; k++) {
+                char c = edgeChars[node][k];
+                int child = edgeTargets[node][k];
+                int state = fail[node];
+                while (state != 0 && next(state, c) < 0) {
+                    state = fail[state];
+                }
+                int target = next(state, c);
+                fail[child] = target >= 0 && target != child ? target : 0;
+                nodeOutputs.get(child).addAll(nodeOutputs.get(fail[child]));
+                queue.add(child);
+            }
+        }
+
+        this.outputs = new int[size][];
+        for (int node = 0; node < size; node++) {
+            outputs[node] = nodeOutputs.get(node).stream().mapToInt(Integer::intValue).distinct().toArray();
+        }
+    }
+
+    /**
+     * 查找文本中出现的关键词
+     *
+     * @param text 文本
+     * @return 出现的关键词下标
+     */
+    BitSet match(CharSequence text) {
+        BitSet matched = new BitSet();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int target;
+            while ((target = next(state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(target, 0);
+            for (int keyword : outputs[state]) {
+                matched.set(keyword);
+            }
+        }
+        return matched;
+    }
+
+    private int next(int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+}
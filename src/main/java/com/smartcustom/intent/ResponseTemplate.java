@@ -0,0 +1,70 @@
+package com.smartcustom.intent;
+
+import com.smartcustom.tool.ToolResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 工具结果回复模板
+ *
+ * 模板中的${name}取工具结果data中的同名字段，${message}取结果消息，
+ * 集合类型的值以顿号连接。模板在构建时预先拆分为文本段和占位段，渲染时不再解析。
+ * 工具执行失败时直接返回错误信息。
+ *
+ * @author SmartCustom Team
+ */
+final class ResponseTemplate {
+
+    private final List<String> literals = new ArrayList<>();
+    private final List<String> placeholders = new ArrayList<>();
+
+    ResponseTemplate(String template) {
+        int start = 0;
+        int open;
+        while ((open = template.indexOf("${", start)) >= 0) {
+            int close = template.indexOf('}', open + 2);
+            if (close < 0) {
+                break;
+            }
+            literals.add(template.substring(start, open));
+            placeholders.add(template.substring(open + 2, close).trim());
+            start = close + 1;
+        }
+        literals.add(template.substring(start));
+    }
+
+    /**
+     * 渲染回复
+     *
+     * @param result 工具执行结果
+     * @return 回复内容
+     */
+    String render(ToolResult result) {
+        if (!result.isSuccess()) {
+            return result.getError() != null ? result.getError() : "抱歉，暂时无法处理您的请求，请稍后重试。";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < placeholders.size(); i++) {
+            builder.append(literals.get(i)).append(value(result, placeholders.get(i)));
+        }
+        return builder.append(literals.get(literals.size() - 1)).toString();
+    }
+
+    private static String value(ToolResult result, String name) {
+        Object value = result.getData() instanceof Map<?, ?> data ? data.get(name) : null;
+        if (value == null && "message".equals(name)) {
+            value = result.getMessage();
+        }
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Collection<?> values) {
+            return values.stream().map(String::valueOf).collect(Collectors.joining("、"));
+        }
+        return String.valueOf(value);
+    }
+}
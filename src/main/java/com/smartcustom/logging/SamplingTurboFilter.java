@@ -0,0 +1,47 @@
+package com.smartcustom.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 日志采样过滤器
+ *
+ * 带有{@link #SAMPLED}标记的高频日志只按1/rate的比例输出，WARN及以上级别始终输出。
+ * TurboFilter在创建日志事件之前执行，被丢弃的日志不会格式化参数，也不会产生事件对象。
+ *
+ * @author SmartCustom Team
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    /**
+     * 高频日志标记
+     */
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private int rate = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (rate <= 1 || marker == null || level == null || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (marker != SAMPLED && !marker.contains(SAMPLED)) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextInt(rate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,321 @@
+package com.smartcustom.metrics;
+
+import com.smartcustom.logging.SamplingTurboFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天流程指标
+ *
+ * 记录每轮对话各阶段耗时（带百分位直方图）、整轮耗时和按类型统计的错误数。
+ * 同时为整轮对话和每个阶段创建追踪span，阶段span在执行期间处于当前作用域，
+ * 模型调用和工具执行产生的span会挂在对应阶段下。span直接通过Tracer创建，
+ * 不经过Observation，避免重复注册一套同名计时器。
+ * 整轮耗时超过阈值时，把阶段耗时和期间的工具调用交给{@link SlowTurnRecorder}记录。
+ * 每轮对话结束时输出一条INFO摘要日志，带{@link SamplingTurboFilter#SAMPLED}标记按比例采样。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String STAGE_SESSION = "session";
+    public static final String STAGE_CACHE = "cache";
+    public static final String STAGE_MEMORY = "memory";
+    // 只包含筛选本轮可用工具，模型发起的工具执行发生在模型调用内，计入model阶段
+    public static final String STAGE_TOOL_RESOLVE = "tool-resolve";
+    public static final String STAGE_MODEL = "model";
+    public static final String STAGE_RESPONSE = "response";
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMetrics.class);
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(60);
+
+    private final MeterRegistry meterRegistry;
+    private final Tracer tracer;
+    private final SlowTurnRecorder slowTurnRecorder;
+
+    // 当前线程正在进行的一轮对话，用于关联期间发生的工具调用
+    private static final ThreadLocal<Stopwatch> CURRENT = new ThreadLocal<>();
+
+    static {
+        // 模型调用在其他线程执行，模型发起的工具调用随上下文快照找到本轮对话
+        ContextRegistry.getInstance().registerThreadLocalAccessor("smartcustom.chat.stopwatch",
+                CURRENT::get, CURRENT::set, CURRENT::remove);
+    }
+
+    // 按“操作/阶段”缓存计时器，避免每次请求都按标签查找
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ChatMetrics(MeterRegistry meterRegistry, ObjectProvider<Tracer> tracer,
+                       ObjectProvider<SlowTurnRecorder> slowTurnRecorder) {
+        this(meterRegistry, tracer.getIfAvailable(() -> Tracer.NOOP), slowTurnRecorder.getIfAvailable());
+    }
+
+    public ChatMetrics(MeterRegistry meterRegistry) {
+        this(meterRegistry, Tracer.NOOP, null);
+    }
+
+    public ChatMetrics(MeterRegistry meterRegistry, Tracer tracer, SlowTurnRecorder slowTurnRecorder) {
+        this.meterRegistry = meterRegistry;
+        this.tracer = tracer;
+        this.slowTurnRecorder = slowTurnRecorder;
+    }
+
+    /**
+     * 开始计时一轮对话
+     *
+     * @param operation 操作名称，如chat、chatWithTools
+     * @return 分段计时器
+     */
+    public Stopwatch start(String operation) {
+        return new Stopwatch(operation);
+    }
+
+    /**
+     * 记录当前线程所在对话中的一次工具调用，不在对话中时忽略
+     *
+     * @param tool 工具名称
+     * @param operation 操作名称
+     * @param durationNanos 耗时（纳秒）
+     * @param success 是否成功
+     */
+    public static void recordToolCall(String tool, String operation, long durationNanos, boolean success) {
+        Stopwatch stopwatch = CURRENT.get();
+        if (stopwatch != null) {
+            stopwatch.addToolCall(new SlowTurn.ToolCall(tool, operation, durationNanos, success));
+        }
+    }
+
+    /**
+     * 记录一次错误
+     *
+     * @param operation 操作名称
+     * @param error 异常
+     */
+    public void recordError(String operation, Throwable error) {
+        Span currentSpan = tracer.currentSpan();
+        if (currentSpan != null) {
+            currentSpan.error(error);
+        }
+
+        String type = error.getClass().getSimpleName();
+        errorCounters.computeIfAbsent(operation + "/" + type, key -> Counter.builder("smartcustom.chat.errors")
+                .description("聊天处理错误数")
+                .tag("operation", operation)
+                .tag("exception", type)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    private Timer stageTimer(String operation, String stage) {
+        return stageTimers.computeIfAbsent(operation + "/" + stage, key -> Timer.builder("smartcustom.chat.stage")
+                .description("聊天各阶段耗时")
+                .tag("operation", operation)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry));
+    }
+
+    private Timer requestTimer(String operation, String outcome) {
+        return requestTimers.computeIfAbsent(operation + "/" + outcome, key -> Timer.builder("smartcustom.chat.requests")
+                .description("整轮对话耗时")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry));
+    }
+
+    /**
+     * 分段计时器，每次lap记录自上次lap以来的耗时
+     * 
+     * 必须在同一线程内调用lap和stop，stop会关闭本轮打开的span作用域。
+     */
+    public class Stopwatch {
+
+        private static final int MAX_STAGES = 8;
+        private static final int MAX_TOOL_CALLS = 32;
+
+        private final String operation;
+        private final long startNanos;
+        private long lapStartNanos;
+
+        // 慢对话时间线，只保存原始数值，超过阈值时才组装成记录
+        private final String[] stageNames = new String[MAX_STAGES];
+        private final long[] stageNanos = new long[MAX_STAGES];
+        private int stageCount;
+        private List<SlowTurn.ToolCall> toolCalls;
+        private String sessionId;
+        private int promptChars = -1;
+        private int historySize = -1;
+        private final Stopwatch previous;
+
+        private final Span span;
+        private final Tracer.SpanInScope scope;
+        private Span stageSpan;
+        private Tracer.SpanInScope stageScope;
+
+        private Stopwatch(String operation) {
+            this.operation = operation;
+            this.span = tracer.nextSpan().name("chat." + operation).start();
+            this.scope = tracer.withSpan(span);
+            openStage();
+            this.previous = CURRENT.get();
+            CURRENT.set(this);
+            this.startNanos = System.nanoTime();
+            this.lapStartNanos = startNanos;
+        }
+
+        private void openStage() {
+            stageSpan = tracer.nextSpan().start();
+            stageScope = tracer.withSpan(stageSpan);
+        }
+
+        private void closeStage() {
+            stageScope.close();
+        }
+
+        /**
+         * 结束当前阶段并开始下一阶段
+         *
+         * @param stage 刚结束的阶段名称
+         * @return 该阶段耗时（纳秒）
+         */
+        public long lap(String stage) {
+            long now = System.nanoTime();
+            long elapsed = now - lapStartNanos;
+            lapStartNanos = now;
+            stageTimer(operation, stage).record(elapsed, TimeUnit.NANOSECONDS);
+            if (stageCount < MAX_STAGES) {
+                stageNames[stageCount] = stage;
+                stageNanos[stageCount] = elapsed;
+                stageCount++;
+            }
+
+            // 阶段名称在阶段结束时才确定
+            closeStage();
+            stageSpan.name("chat." + operation + "." + stage).end();
+            openStage();
+            return elapsed;
+        }
+
+        /**
+         * 结束整轮计时
+         *
+         * @param success 是否成功
+         * @return 整轮耗时（纳秒）
+         */
+        public long stop(boolean success) {
+            long elapsed = System.nanoTime() - startNanos;
+            String outcome = success ? "success" : "error";
+            requestTimer(operation, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            // 每轮一条，生产环境按smartcustom.logging.sample-rate采样；在span结束前输出，日志带traceId
+            logger.info(SamplingTurboFilter.SAMPLED, "对话完成: operation={}, sessionId={}, outcome={}, elapsedMillis={}",
+                    operation, sessionId, outcome, TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            if (slowTurnRecorder != null && slowTurnRecorder.isSlow(elapsed)) {
+                slowTurnRecorder.record(this, elapsed, success);
+            }
+
+            // 最后一次lap之后打开的阶段没有内容，直接丢弃；出错时保留出错的阶段
+            closeStage();
+            if (success) {
+                stageSpan.abandon();
+            } else {
+                stageSpan.name("chat." + operation + ".failed").end();
+            }
+            scope.close();
+            span.tag("outcome", outcome).end();
+            return elapsed;
+        }
+
+        /**
+         * 补充本轮对话的上下文，用于慢对话记录
+         *
+         * @param sessionId 会话ID
+         * @param promptChars 用户消息长度
+         * @param historySize 会话中的消息数
+         */
+        public void describe(String sessionId, int promptChars, int historySize) {
+            this.sessionId = sessionId;
+            this.promptChars = promptChars;
+            this.historySize = historySize;
+        }
+
+        // 对冲的两次模型调用可能同时执行工具
+        private synchronized void addToolCall(SlowTurn.ToolCall toolCall) {
+            if (toolCalls == null) {
+                toolCalls = new ArrayList<>();
+            }
+            if (toolCalls.size() < MAX_TOOL_CALLS) {
+                toolCalls.add(toolCall);
+            }
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public int getPromptChars() {
+            return promptChars;
+        }
+
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        public String getTraceId() {
+            return span.context().traceId();
+        }
+
+        /**
+         * 获取各阶段耗时（毫秒），按执行顺序排列
+         */
+        public Map<String, Double> getStageMillis() {
+            Map<String, Double> stages = new LinkedHashMap<>();
+            for (int i = 0; i < stageCount; i++) {
+                stages.merge(stageNames[i], stageNanos[i] / 1_000_000.0, Double::sum);
+            }
+            return stages;
+        }
+
+        public synchronized List<SlowTurn.ToolCall> getToolCalls() {
+            return toolCalls != null ? List.copyOf(toolCalls) : Collections.emptyList();
+        }
+    }
+}
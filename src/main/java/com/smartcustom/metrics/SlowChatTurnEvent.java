@@ -0,0 +1,50 @@
+package com.smartcustom.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 慢对话JFR事件，只在开启JFR录制时才会被记录
+ *
+ * @author SmartCustom Team
+ */
+@Name("com.smartcustom.SlowChatTurn")
+@Label("Slow Chat Turn")
+@Category({"SmartCustom", "Chat"})
+@Description("超过阈值的一轮对话")
+class SlowChatTurnEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Session Id")
+    String sessionId;
+
+    @Label("Trace Id")
+    String traceId;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Turn Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long turnDuration;
+
+    @Label("Prompt Chars")
+    int promptChars;
+
+    @Label("History Size")
+    int historySize;
+
+    @Label("Executor Queue Depth")
+    int queueDepth;
+
+    @Label("Stages")
+    String stages;
+
+    @Label("Tool Calls")
+    String toolCalls;
+}
@@ -0,0 +1,127 @@
+package com.smartcustom.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 慢对话记录
+ *
+ * 一轮超过阈值的对话的精简时间线：各阶段耗时、工具调用、提示长度、历史长度和线程池排队数。
+ *
+ * @author SmartCustom Team
+ */
+public class SlowTurn {
+
+    private final Instant timestamp;
+    private final String operation;
+    private final String sessionId;
+    private final String traceId;
+    private final boolean success;
+    private final double durationMillis;
+    private final int promptChars;
+    private final int historySize;
+    private final int queueDepth;
+    private final Map<String, Double> stageMillis;
+    private final List<ToolCall> toolCalls;
+
+    public SlowTurn(Instant timestamp, String operation, String sessionId, String traceId, boolean success,
+                    double durationMillis, int promptChars, int historySize, int queueDepth,
+                    Map<String, Double> stageMillis, List<ToolCall> toolCalls) {
+        this.timestamp = timestamp;
+        this.operation = operation;
+        this.sessionId = sessionId;
+        this.traceId = traceId;
+        this.success = success;
+        this.durationMillis = durationMillis;
+        this.promptChars = promptChars;
+        this.historySize = historySize;
+        this.queueDepth = queueDepth;
+        this.stageMillis = stageMillis;
+        this.toolCalls = toolCalls;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public double getDurationMillis() {
+        return durationMillis;
+    }
+
+    public int getPromptChars() {
+        return promptChars;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public Map<String, Double> getStageMillis() {
+        return stageMillis;
+    }
+
+    public List<ToolCall> getToolCalls() {
+        return toolCalls;
+    }
+
+    /**
+     * 一轮对话中的一次工具调用
+     */
+    public static class ToolCall {
+
+        private final String tool;
+        private final String operation;
+        private final long durationNanos;
+        private final boolean success;
+
+        public ToolCall(String tool, String operation, long durationNanos, boolean success) {
+            this.tool = tool;
+            this.operation = operation;
+            this.durationNanos = durationNanos;
+            this.success = success;
+        }
+
+        public String getTool() {
+            return tool;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public double getDurationMillis() {
+            return durationNanos / 1_000_000.0;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        @Override
+        public String toString() {
+            return tool + (operation != null ? "/" + operation : "") + "=" + getDurationMillis() + "ms"
+                    + (success ? "" : "(failed)");
+        }
+    }
+}
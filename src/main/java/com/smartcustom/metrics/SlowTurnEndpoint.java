@@ -0,0 +1,36 @@
+package com.smartcustom.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 慢对话管理端点，访问路径为/actuator/slowturns
+ *
+ * @author SmartCustom Team
+ */
+@Component
+@Endpoint(id = "slowturns")
+public class SlowTurnEndpoint {
+
+    private final SlowTurnRecorder slowTurnRecorder;
+
+    @Autowired
+    public SlowTurnEndpoint(SlowTurnRecorder slowTurnRecorder) {
+        this.slowTurnRecorder = slowTurnRecorder;
+    }
+
+    @ReadOperation
+    public List<SlowTurn> slowTurns() {
+        return slowTurnRecorder.getRecent();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowTurnRecorder.clear();
+    }
+}
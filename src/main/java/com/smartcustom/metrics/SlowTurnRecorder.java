@@ -0,0 +1,133 @@
+package com.smartcustom.metrics;
+
+import com.smartcustom.config.SmartCustomProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 慢对话记录器
+ *
+ * 超过阈值的对话写入固定容量的环形缓冲区，写满后覆盖最旧的记录，
+ * 写入只需一次原子自增，不加锁。可选同时提交JFR事件。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class SlowTurnRecorder {
+
+    private final SmartCustomProperties.Chat.SlowTurn config;
+    private final Executor taskExecutor;
+
+    private final AtomicReferenceArray<SlowTurn> ring;
+    private final AtomicLong writeIndex = new AtomicLong();
+
+    @Autowired
+    public SlowTurnRecorder(SmartCustomProperties properties, @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.config = properties.getChat().getSlowTurn();
+        this.taskExecutor = taskExecutor;
+        this.ring = new AtomicReferenceArray<>(Math.max(1, config.getCapacity()));
+    }
+
+    /**
+     * 判断一轮对话是否超过阈值
+     *
+     * @param elapsedNanos 耗时（纳秒）
+     * @return 是否需要记录
+     */
+    public boolean isSlow(long elapsedNanos) {
+        return config.isEnabled() && elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(config.getThresholdMillis());
+    }
+
+    /**
+     * 记录一轮慢对话
+     *
+     * @param stopwatch 本轮对话的计时器
+     * @param elapsedNanos 整轮耗时（纳秒）
+     * @param success 是否成功
+     */
+    public void record(ChatMetrics.Stopwatch stopwatch, long elapsedNanos, boolean success) {
+        SlowTurn turn = new SlowTurn(
+                Instant.now(),
+                stopwatch.getOperation(),
+                stopwatch.getSessionId(),
+                stopwatch.getTraceId(),
+                success,
+                elapsedNanos / 1_000_000.0,
+                stopwatch.getPromptChars(),
+                stopwatch.getHistorySize(),
+                getQueueDepth(),
+                stopwatch.getStageMillis(),
+                stopwatch.getToolCalls());
+
+        long index = writeIndex.getAndIncrement();
+        ring.set((int) (index % ring.length()), turn);
+
+        if (config.isJfrEnabled()) {
+            commitJfrEvent(turn, elapsedNanos);
+        }
+    }
+
+    /**
+     * 获取最近的慢对话记录
+     *
+     * @return 按时间倒序排列的记录
+     */
+    public List<SlowTurn> getRecent() {
+        int capacity = ring.length();
+        long end = writeIndex.get();
+        long start = Math.max(0, end - capacity);
+
+        List<SlowTurn> turns = new ArrayList<>((int) (end - start));
+        for (long i = end - 1; i >= start; i--) {
+            SlowTurn turn = ring.get((int) (i % capacity));
+            if (turn != null) {
+                turns.add(turn);
+            }
+        }
+        return turns;
+    }
+
+    /**
+     * 清空记录
+     */
+    public void clear() {
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, null);
+        }
+    }
+
+    private int getQueueDepth() {
+        if (taskExecutor instanceof ThreadPoolTaskExecutor executor) {
+            return executor.getThreadPoolExecutor().getQueue().size();
+        }
+        return -1;
+    }
+
+    private static void commitJfrEvent(SlowTurn turn, long elapsedNanos) {
+        SlowChatTurnEvent event = new SlowChatTurnEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.operation = turn.getOperation();
+        event.sessionId = turn.getSessionId();
+        event.traceId = turn.getTraceId();
+        event.success = turn.isSuccess();
+        event.turnDuration = elapsedNanos;
+        event.promptChars = turn.getPromptChars();
+        event.historySize = turn.getHistorySize();
+        event.queueDepth = turn.getQueueDepth();
+        event.stages = turn.getStageMillis().toString();
+        event.toolCalls = turn.getToolCalls().toString();
+        event.commit();
+    }
+}
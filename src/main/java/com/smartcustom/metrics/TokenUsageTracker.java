@@ -0,0 +1,224 @@
+package com.smartcustom.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 令牌用量统计
+ *
+ * 按用户、会话和模型累计提示令牌与生成令牌。计数使用LongAdder分段累加，
+ * 高并发下各线程写入不同的单元，不会争用同一个计数器。
+ * 指标只按模型打标签，用户和会话维度通过用量API查询，避免标签数量无限增长。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class TokenUsageTracker {
+
+    public static final String UNKNOWN = "unknown";
+
+    // 单个维度最多跟踪的条目数，超出后计入OVERFLOW
+    private static final int MAX_ENTRIES = 100000;
+    private static final String OVERFLOW = "_overflow";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Usage> userUsage = new ConcurrentHashMap<>();
+    private final Map<String, Usage> sessionUsage = new ConcurrentHashMap<>();
+    private final Map<String, Usage> modelUsage = new ConcurrentHashMap<>();
+    private final Usage totalUsage = new Usage();
+
+    private final Map<String, ModelMeters> modelMeters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenUsageTracker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 记录一次模型调用的令牌用量
+     *
+     * @param userId 用户ID，可以为null
+     * @param sessionId 会话ID
+     * @param model 模型名称，可以为null
+     * @param promptTokens 提示令牌数
+     * @param generationTokens 生成令牌数
+     */
+    public void record(String userId, String sessionId, String model, long promptTokens, long generationTokens) {
+        String modelName = model != null && !model.isEmpty() ? model : UNKNOWN;
+
+        totalUsage.add(promptTokens, generationTokens);
+        usage(modelUsage, modelName).add(promptTokens, generationTokens);
+        if (userId != null) {
+            usage(userUsage, userId).add(promptTokens, generationTokens);
+        }
+        if (sessionId != null) {
+            usage(sessionUsage, sessionId).add(promptTokens, generationTokens);
+        }
+
+        ModelMeters meters = modelMeters.computeIfAbsent(modelName, ModelMeters::new);
+        meters.promptTokens.increment(promptTokens);
+        meters.generationTokens.increment(generationTokens);
+        meters.tokensPerRequest.record(promptTokens + generationTokens);
+    }
+
+    /**
+     * 会话删除或过期后移除其用量
+     *
+     * @param sessionId 会话ID
+     */
+    public void removeSession(String sessionId) {
+        sessionUsage.remove(sessionId);
+    }
+
+    public UsageSnapshot getUserUsage(String userId) {
+        return snapshot(userId, userUsage.get(userId));
+    }
+
+    public UsageSnapshot getSessionUsage(String sessionId) {
+        return snapshot(sessionId, sessionUsage.get(sessionId));
+    }
+
+    public UsageSnapshot getTotalUsage() {
+        return totalUsage.snapshot("total");
+    }
+
+    /**
+     * 获取各模型的用量
+     *
+     * @return 按总令牌数降序排列的用量列表
+     */
+    public List<UsageSnapshot> getModelUsage() {
+        return modelUsage.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingLong(UsageSnapshot::getTotalTokens).reversed())
+                .toList();
+    }
+
+    /**
+     * 获取用量最高的用户
+     *
+     * @param limit 返回数量
+     * @return 按总令牌数降序排列的用量列表
+     */
+    public List<UsageSnapshot> getTopUsers(int limit) {
+        return userUsage.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingLong(UsageSnapshot::getTotalTokens).reversed())
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    private static Usage usage(Map<String, Usage> table, String key) {
+        Usage usage = table.get(key);
+        if (usage != null) {
+            return usage;
+        }
+        if (table.size() >= MAX_ENTRIES) {
+            key = OVERFLOW;
+        }
+        return table.computeIfAbsent(key, k -> new Usage());
+    }
+
+    private static UsageSnapshot snapshot(String key, Usage usage) {
+        return usage != null ? usage.snapshot(key) : new Usage().snapshot(key);
+    }
+
+    /**
+     * 单个维度取值的累计用量
+     */
+    private static class Usage {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder generationTokens = new LongAdder();
+
+        private void add(long prompt, long generation) {
+            requests.increment();
+            promptTokens.add(prompt);
+            generationTokens.add(generation);
+        }
+
+        private UsageSnapshot snapshot(String key) {
+            long prompt = promptTokens.sum();
+            long generation = generationTokens.sum();
+            return new UsageSnapshot(key, requests.sum(), prompt, generation);
+        }
+    }
+
+    /**
+     * 单个模型的指标
+     */
+    private class ModelMeters {
+
+        private final Counter promptTokens;
+        private final Counter generationTokens;
+        private final DistributionSummary tokensPerRequest;
+
+        private ModelMeters(String model) {
+            this.promptTokens = Counter.builder("smartcustom.tokens")
+                    .description("模型令牌用量")
+                    .tag("model", model)
+                    .tag("type", "prompt")
+                    .register(meterRegistry);
+            this.generationTokens = Counter.builder("smartcustom.tokens")
+                    .description("模型令牌用量")
+                    .tag("model", model)
+                    .tag("type", "generation")
+                    .register(meterRegistry);
+            this.tokensPerRequest = DistributionSummary.builder("smartcustom.tokens.per.request")
+                    .description("单次模型调用的令牌数")
+                    .baseUnit("tokens")
+                    .tag("model", model)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 用量快照
+     */
+    public static class UsageSnapshot {
+
+        private final String key;
+        private final long requests;
+        private final long promptTokens;
+        private final long generationTokens;
+
+        public UsageSnapshot(String key, long requests, long promptTokens, long generationTokens) {
+            this.key = key;
+            this.requests = requests;
+            this.promptTokens = promptTokens;
+            this.generationTokens = generationTokens;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getPromptTokens() {
+            return promptTokens;
+        }
+
+        public long getGenerationTokens() {
+            return generationTokens;
+        }
+
+        public long getTotalTokens() {
+            return promptTokens + generationTokens;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.smartcustom.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 工具执行指标
+ *
+ * 按工具名称、操作和结果记录执行耗时，按工具统计执行中数量和错误数，
+ * 并为每个工具维护一个低开销直方图用于输出p50/p95/p99汇总。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class ToolMetrics {
+
+    public static final String DEFAULT_OPERATION = "default";
+    public static final String OTHER_OPERATION = "other";
+
+    // 操作名来自请求参数，限制每个工具的标签取值数量，避免指标数量无限增长
+    private static final int MAX_OPERATIONS_PER_TOOL = 32;
+    private static final int MAX_OPERATION_LENGTH = 32;
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ToolState> toolStates = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ToolMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 开始一次工具执行
+     *
+     * @param toolName 工具名称
+     * @return 开始时间（纳秒），传给{@link #stop}
+     */
+    public long start(String toolName) {
+        state(toolName).inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束一次工具执行
+     *
+     * @param toolName 工具名称
+     * @param operation 操作名称
+     * @param startNanos {@link #start}返回的开始时间
+     * @param success 是否成功
+     * @param error 执行时抛出的异常，没有时为null
+     */
+    public void stop(String toolName, String operation, long startNanos, boolean success, Throwable error) {
+        long elapsed = System.nanoTime() - startNanos;
+        ToolState state = state(toolName);
+        state.inFlight.decrementAndGet();
+        state.histogram.record(elapsed, TimeUnit.NANOSECONDS);
+
+        String op = state.boundOperation(operation);
+        String outcome = success ? "success" : "failure";
+        timers.computeIfAbsent(toolName + "/" + op + "/" + outcome, key -> Timer.builder("smartcustom.tool.executions")
+                .description("工具执行耗时")
+                .tag("tool", toolName)
+                .tag("operation", op)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        ChatMetrics.recordToolCall(toolName, op, elapsed, success);
+
+        if (!success) {
+            state.failures.increment();
+            String type = error != null ? error.getClass().getSimpleName() : "ToolError";
+            errorCounters.computeIfAbsent(toolName + "/" + op + "/" + type, key -> Counter.builder("smartcustom.tool.errors")
+                    .description("工具执行错误数")
+                    .tag("tool", toolName)
+                    .tag("operation", op)
+                    .tag("exception", type)
+                    .register(meterRegistry))
+                    .increment();
+        }
+    }
+
+    /**
+     * 获取所有工具的执行汇总
+     *
+     * @return 按工具名称排序的汇总列表
+     */
+    public List<ToolStats> getStats() {
+        List<ToolStats> stats = new ArrayList<>(toolStates.size());
+        toolStates.forEach((name, state) -> stats.add(state.snapshot(name)));
+        stats.sort(Comparator.comparing(ToolStats::getTool));
+        return stats;
+    }
+
+    private ToolState state(String toolName) {
+        ToolState state = toolStates.get(toolName);
+        if (state != null) {
+            return state;
+        }
+        return toolStates.computeIfAbsent(toolName, name -> {
+            ToolState created = new ToolState();
+            Gauge.builder("smartcustom.tool.inflight", created.inFlight, AtomicInteger::get)
+                    .description("执行中的工具调用数")
+                    .tag("tool", name)
+                    .register(meterRegistry);
+            return created;
+        });
+    }
+
+    /**
+     * 单个工具的运行状态
+     */
+    private static class ToolState {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final Set<String> operations = ConcurrentHashMap.newKeySet();
+
+        private String boundOperation(String operation) {
+            if (operation == null || operation.isEmpty()) {
+                return DEFAULT_OPERATION;
+            }
+            if (operation.length() > MAX_OPERATION_LENGTH) {
+                return OTHER_OPERATION;
+            }
+            if (operations.contains(operation)) {
+                return operation;
+            }
+            if (operations.size() >= MAX_OPERATIONS_PER_TOOL) {
+                return OTHER_OPERATION;
+            }
+            operations.add(operation);
+            return operation;
+        }
+
+        private ToolStats snapshot(String name) {
+            ToolStats stats = new ToolStats();
+            stats.setTool(name);
+            stats.setCount(histogram.getCount());
+            stats.setFailures(failures.sum());
+            stats.setInFlight(inFlight.get());
+            stats.setMeanMillis(histogram.getMeanMillis());
+            stats.setP50Millis(histogram.getPercentileMillis(0.50));
+            stats.setP95Millis(histogram.getPercentileMillis(0.95));
+            stats.setP99Millis(histogram.getPercentileMillis(0.99));
+            stats.setMaxMillis(histogram.getMaxMillis());
+            return stats;
+        }
+    }
+
+    /**
+     * 工具执行汇总
+     */
+    public static class ToolStats {
+
+        private String tool;
+        private long count;
+        private long failures;
+        private int inFlight;
+        private double meanMillis;
+        private double p50Millis;
+        private double p95Millis;
+        private double p99Millis;
+        private double maxMillis;
+
+        public String getTool() {
+            return tool;
+        }
+
+        public void setTool(String tool) {
+            this.tool = tool;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public void setFailures(long failures) {
+            this.failures = failures;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public void setInFlight(int inFlight) {
+            this.inFlight = inFlight;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public void setMeanMillis(double meanMillis) {
+            this.meanMillis = meanMillis;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public void setP50Millis(double p50Millis) {
+            this.p50Millis = p50Millis;
+        }
+
+        public double getP95Millis() {
+            return p95Millis;
+        }
+
+        public void setP95Millis(double p95Millis) {
+            this.p95Millis = p95Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public void setP99Millis(double p99Millis) {
+            this.p99Millis = p99Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public void setMaxMillis(double maxMillis) {
+            this.maxMillis = maxMillis;
+        }
+    }
+}
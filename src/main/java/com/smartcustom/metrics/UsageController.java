@@ -0,0 +1,80 @@
+package com.smartcustom.controller;
+
+import com.smartcustom.metrics.TokenUsageTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 令牌用量API控制器
+ *
+ * @author SmartCustom Team
+ */
+@RestController
+@RequestMapping("/usage")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class UsageController {
+
+    private final TokenUsageTracker tokenUsageTracker;
+
+    @Autowired
+    public UsageController(TokenUsageTracker tokenUsageTracker) {
+        this.tokenUsageTracker = tokenUsageTracker;
+    }
+
+    /**
+     * 获取总用量
+     *
+     * @return 总用量
+     */
+    @GetMapping
+    public ResponseEntity<TokenUsageTracker.UsageSnapshot> getTotalUsage() {
+        return ResponseEntity.ok(tokenUsageTracker.getTotalUsage());
+    }
+
+    /**
+     * 获取各模型的用量
+     *
+     * @return 模型用量列表
+     */
+    @GetMapping("/models")
+    public ResponseEntity<List<TokenUsageTracker.UsageSnapshot>> getModelUsage() {
+        return ResponseEntity.ok(tokenUsageTracker.getModelUsage());
+    }
+
+    /**
+     * 获取用量最高的用户
+     *
+     * @param limit 返回数量
+     * @return 用户用量列表
+     */
+    @GetMapping("/users")
+    public ResponseEntity<List<TokenUsageTracker.UsageSnapshot>> getTopUsers(
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(tokenUsageTracker.getTopUsers(limit));
+    }
+
+    /**
+     * 获取用户用量
+     *
+     * @param userId 用户ID
+     * @return 用户用量
+     */
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<TokenUsageTracker.UsageSnapshot> getUserUsage(@PathVariable String userId) {
+        return ResponseEntity.ok(tokenUsageTracker.getUserUsage(userId));
+    }
+
+    /**
+     * 获取会话用量
+     *
+     * @param sessionId 会话ID
+     * @return 会话用量
+     */
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<TokenUsageTracker.UsageSnapshot> getSessionUsage(@PathVariable String sessionId) {
+        return ResponseEntity.ok(tokenUsageTracker.getSessionUsage(sessionId));
+    }
+}
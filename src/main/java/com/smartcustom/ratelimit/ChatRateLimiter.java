@@ -0,0 +1,141 @@
+package com.smartcustom.ratelimit;
+
+import com.smartcustom.config.SmartCustomProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 聊天请求准入控制
+ *
+ * 先按用户令牌桶限流，再占用全局并发许可。全局并发已满时最多允许maxQueue个请求短暂等待，
+ * 超过等待时间或排队已满则立即拒绝，避免请求在模型调用前无限堆积。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class ChatRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatRateLimiter.class);
+
+    private static final Permit NOOP_PERMIT = () -> { };
+
+    private final SmartCustomProperties.RateLimit config;
+    private final int retryAfterSeconds;
+
+    private final TokenBucketRateLimiter userLimiter;
+    private final Semaphore concurrency;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Counter userRejections;
+    private final Counter concurrencyRejections;
+
+    @Autowired
+    public ChatRateLimiter(SmartCustomProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getRateLimit();
+        this.retryAfterSeconds = properties.getAsync().getRetryAfterSeconds();
+        this.userLimiter = new TokenBucketRateLimiter(
+                config.getRequestsPerSecond(), config.getBurst(), config.getMaxTrackedUsers());
+        this.concurrency = new Semaphore(config.getMaxConcurrent());
+
+        this.userRejections = Counter.builder("smartcustom.ratelimit.rejected")
+                .description("被限流拒绝的聊天请求数")
+                .tag("reason", "user")
+                .register(meterRegistry);
+        this.concurrencyRejections = Counter.builder("smartcustom.ratelimit.rejected")
+                .description("被限流拒绝的聊天请求数")
+                .tag("reason", "concurrency")
+                .register(meterRegistry);
+        Gauge.builder("smartcustom.ratelimit.inflight", this, ChatRateLimiter::getInFlight)
+                .description("正在处理的聊天请求数")
+                .register(meterRegistry);
+        Gauge.builder("smartcustom.ratelimit.waiting", waiting, AtomicInteger::get)
+                .description("等待并发许可的聊天请求数")
+                .register(meterRegistry);
+        Gauge.builder("smartcustom.ratelimit.buckets", userLimiter, TokenBucketRateLimiter::size)
+                .description("跟踪中的用户令牌桶数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 申请处理一个聊天请求
+     *
+     * @param key 限流键，通常为用户ID
+     * @return 处理结束后必须关闭的许可
+     * @throws RateLimitExceededException 用户请求过于频繁或系统并发已满
+     */
+    public Permit acquire(String key) {
+        if (!config.isEnabled()) {
+            return NOOP_PERMIT;
+        }
+
+        long waitNanos = userLimiter.tryAcquire(key);
+        if (waitNanos > 0) {
+            userRejections.increment();
+            long seconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            throw new RateLimitExceededException("请求过于频繁，请" + seconds + "秒后重试", seconds);
+        }
+
+        if (!concurrency.tryAcquire() && !awaitPermit()) {
+            concurrencyRejections.increment();
+            throw new RateLimitExceededException("系统繁忙，请" + retryAfterSeconds + "秒后重试", retryAfterSeconds);
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                concurrency.release();
+            }
+        };
+    }
+
+    private boolean awaitPermit() {
+        if (waiting.incrementAndGet() > config.getMaxQueue()) {
+            waiting.decrementAndGet();
+            return false;
+        }
+        try {
+            return concurrency.tryAcquire(config.getQueueTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * 定期清理已装满的令牌桶，装满的桶与新建的桶等价
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleBuckets() {
+        int removed = userLimiter.evictFull();
+        if (removed > 0) {
+            logger.debug("清理了 {} 个空闲令牌桶", removed);
+        }
+    }
+
+    public int getInFlight() {
+        return config.getMaxConcurrent() - concurrency.availablePermits();
+    }
+
+    /**
+     * 并发许可，请求处理结束时关闭，重复关闭无副作用
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
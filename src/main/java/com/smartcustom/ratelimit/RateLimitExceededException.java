@@ -0,0 +1,23 @@
+package com.smartcustom.ratelimit;
+
+/**
+ * 请求超出限流或并发上限时抛出，由GlobalExceptionHandler转换为429响应
+ *
+ * @author SmartCustom Team
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 建议客户端重试前等待的秒数
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
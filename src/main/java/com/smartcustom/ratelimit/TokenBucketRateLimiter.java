@@ -0,0 +1,99 @@
+package com.smartcustom.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键限流的令牌桶
+ *
+ * 每个桶只保存一个“理论到达时间”（GCRA算法，与令牌桶等价）：取令牌就是把该时间向后推一个发放间隔，
+ * 一次CAS完成，不加锁。桶存放在ConcurrentHashMap中，不同键落在不同的桶槽，互不争用。
+ * 理论到达时间早于当前时间的桶已经装满，与新建的桶完全相同，可以随时删除，
+ * 因此定期调用{@link #evictFull}即可把内存限制在近期活跃的键上。
+ *
+ * @author SmartCustom Team
+ */
+public class TokenBucketRateLimiter {
+
+    static final String OVERFLOW = "_overflow";
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxBuckets;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst 桶容量，即允许的突发请求数
+     * @param maxBuckets 最多保留的桶数
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, int maxBuckets) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("限流速率和桶容量必须为正数");
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param key 限流键
+     * @return 0表示获取成功，否则为需要等待的纳秒数
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long nowNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                // 桶数达到上限时新键共用一个桶，等定期清理腾出空间
+                key = OVERFLOW;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+
+        while (true) {
+            long tat = bucket.get();
+            long start = Math.max(tat, nowNanos);
+            long newTat = start + emissionIntervalNanos;
+            long waitNanos = newTat - nowNanos - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 删除已经装满的桶
+     *
+     * @return 删除的桶数
+     */
+    public int evictFull() {
+        return evictFull(System.nanoTime());
+    }
+
+    int evictFull(long nowNanos) {
+        int removed = 0;
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            if (bucket.get() <= nowNanos && buckets.remove(entry.getKey(), bucket)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
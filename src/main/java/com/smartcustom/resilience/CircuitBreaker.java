@@ -0,0 +1,152 @@
+package com.smartcustom.resilience;
+
+/**
+ * 基于失败率的熔断器
+ *
+ * 关闭状态下用环形窗口记录最近若干次调用的结果，调用数达到下限且失败率超过阈值时打开。
+ * 打开状态拒绝所有调用，经过冷却时间后进入半开状态，放行少量探测调用：
+ * 全部成功则关闭，任意一次失败则重新打开。
+ * 状态变更都很短，直接在实例上同步。
+ *
+ * @author SmartCustom Team
+ */
+public class CircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    // 最近调用结果的环形窗口，true表示失败
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * @param failureRateThreshold 打开熔断的失败率（百分比）
+     * @param slidingWindowSize 统计失败率的最近调用数
+     * @param minimumCalls 计算失败率前至少需要的调用数
+     * @param openDurationMillis 打开后到允许探测的冷却时间（毫秒）
+     * @param halfOpenCalls 半开状态放行的探测调用数
+     */
+    public CircuitBreaker(int failureRateThreshold, int slidingWindowSize, int minimumCalls,
+                          long openDurationMillis, int halfOpenCalls) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(1, slidingWindowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.openDurationNanos = openDurationMillis * 1_000_000L;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /**
+     * 申请一次调用
+     *
+     * @return 是否允许调用，允许时调用结束后必须调用{@link #onSuccess}或{@link #onFailure}
+     */
+    public boolean tryAcquirePermission() {
+        return tryAcquirePermission(System.nanoTime());
+    }
+
+    synchronized boolean tryAcquirePermission(long nowNanos) {
+        if (state == State.OPEN) {
+            if (nowNanos - openedAtNanos < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次成功调用
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                reset();
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false, 0L);
+        }
+    }
+
+    /**
+     * 记录一次失败调用
+     */
+    public void onFailure() {
+        onFailure(System.nanoTime());
+    }
+
+    synchronized void onFailure(long nowNanos) {
+        if (state == State.HALF_OPEN) {
+            open(nowNanos);
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true, nowNanos);
+        }
+    }
+
+    /**
+     * 获取当前状态，打开且冷却时间已过时仍返回OPEN，直到下一次申请调用
+     *
+     * @return 熔断器状态
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure, long nowNanos) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+
+        if (failure && windowCount >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCount) {
+            open(nowNanos);
+        }
+    }
+
+    private void open(long nowNanos) {
+        state = State.OPEN;
+        openedAtNanos = nowNanos;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+}
@@ -0,0 +1,140 @@
+package com.smartcustom.resilience;
+
+import com.smartcustom.cache.SemanticResponseCache;
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.model.dto.ChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 降级回复
+ *
+ * 模型熔断、超过延迟预算或重试后仍不可用时，不再直接返回错误，而是按顺序尝试：
+ * 语义响应缓存中相似问题的回答、按关键词匹配的预设模板，都没有时返回默认回复。
+ * 缓存只在本轮正常处理时也允许使用的情况下使用。
+ * 规则意图在调用模型之前已经匹配过，降级时不再重复匹配。
+ * 熔断器冷却后自动放行探测调用，模型恢复后不再走降级路径。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class DegradedResponder {
+
+    private final SmartCustomProperties.Resilience.Degradation config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private SemanticResponseCache responseCache;
+
+    @Autowired
+    public DegradedResponder(SmartCustomProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getResilience().getDegradation();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 设置语义响应缓存，未设置时降级不查缓存
+     *
+     * @param responseCache 语义响应缓存
+     */
+    @Autowired(required = false)
+    public void setResponseCache(SemanticResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * 是否启用降级
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 启用降级时模型调用的延迟预算
+     *
+     * @return 延迟预算（毫秒）
+     */
+    public long getLatencyBudgetMillis() {
+        return config.getLatencyBudgetMillis();
+    }
+
+    /**
+     * 模型调用失败时是否应当降级，请求本身有误时不降级
+     *
+     * @param e 模型调用异常
+     * @return 是否降级
+     */
+    public boolean shouldDegrade(ModelCallException e) {
+        return config.isEnabled() && e.getReason() != ModelCallException.Reason.FAILED;
+    }
+
+    /**
+     * 生成降级回复
+     *
+     * @param message 用户消息
+     * @param cacheable 本轮是否允许使用语义响应缓存（会话首轮）
+     * @param reason 降级原因
+     * @return 降级回复
+     */
+    public Reply reply(String message, boolean cacheable, ModelCallException.Reason reason) {
+        Reply reply = answer(message, cacheable);
+        counters.computeIfAbsent(reply.source + "/" + reason, key -> Counter.builder("smartcustom.chat.degraded")
+                .description("模型不可用时的降级回复数")
+                .tag("source", reply.source.name().toLowerCase())
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry))
+                .increment();
+        return reply;
+    }
+
+    private Reply answer(String message, boolean cacheable) {
+        if (message == null) {
+            return new Reply(config.getDefaultAnswer(), ChatResponse.Source.TEMPLATE);
+        }
+
+        if (cacheable && responseCache != null) {
+            String cached = responseCache.get(message);
+            if (cached != null) {
+                return new Reply(cached, ChatResponse.Source.CACHE);
+            }
+        }
+
+        for (SmartCustomProperties.Resilience.Degradation.Template template : config.getTemplates()) {
+            for (String keyword : template.getKeywords()) {
+                if (message.contains(keyword)) {
+                    return new Reply(template.getAnswer(), ChatResponse.Source.TEMPLATE);
+                }
+            }
+        }
+        return new Reply(config.getDefaultAnswer(), ChatResponse.Source.TEMPLATE);
+    }
+
+    /**
+     * 降级回复内容
+     */
+    public static class Reply {
+
+        private final String content;
+        private final ChatResponse.Source source;
+
+        private Reply(String content, ChatResponse.Source source) {
+            this.content = content;
+            this.source = source;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public ChatResponse.Source getSource() {
+            return source;
+        }
+    }
+}
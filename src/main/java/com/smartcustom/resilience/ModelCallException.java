@@ -0,0 +1,51 @@
+package com.smartcustom.resilience;
+
+/**
+ * 模型调用失败异常
+ *
+ * @author SmartCustom Team
+ */
+public class ModelCallException extends RuntimeException {
+
+    /**
+     * 失败原因
+     */
+    public enum Reason {
+        /**
+         * 熔断器打开，未发起调用
+         */
+        CIRCUIT_OPEN,
+
+        /**
+         * 超过调用截止时间
+         */
+        DEADLINE_EXCEEDED,
+
+        /**
+         * 可重试的错误（网络错误、服务端错误）在重试后仍然失败
+         */
+        UNAVAILABLE,
+
+        /**
+         * 请求本身有误等不可重试的错误
+         */
+        FAILED
+    }
+
+    private final Reason reason;
+    private final String endpoint;
+
+    public ModelCallException(Reason reason, String endpoint, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+        this.endpoint = endpoint;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,388 @@
+package com.smartcustom.resilience;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.metrics.LatencyHistogram;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 模型调用容错执行器
+ *
+ * 每次模型调用都有截止时间，单次尝试另有超时。可重试的错误（超时、网络错误、服务端5xx）
+ * 按指数退避加全抖动重试，退避时间超出截止时间时不再重试。每个模型一个熔断器，
+ * 失败率过高时直接拒绝调用，冷却后放行少量探测调用自动恢复。
+ * 启用对冲时，尝试超过该模型成功调用的p95仍未返回，会再发起一次相同调用，取先返回的结果。
+ *
+ * 调用在虚拟线程中执行，调用线程只负责等待，超时或得到结果后中断其余尝试。
+ * {@link #execute}执行的调用必须没有副作用，可以安全地重复执行。
+ * 有副作用的调用（如模型可能发起退款的函数调用）用{@link #executeOnce}执行，只尝试一次，超时也不中断。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class ModelCallExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelCallExecutor.class);
+
+    // 每个模型的延迟窗口样本数，窗口满后换新，p95取上一个完整窗口，跟随服务端延迟变化
+    private static final int LATENCY_WINDOW = 1000;
+
+    private final SmartCustomProperties.Resilience config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("model-call-", 0).factory());
+
+    @Autowired
+    public ModelCallExecutor(SmartCustomProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getResilience();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 使用配置的截止时间执行模型调用
+     *
+     * @param endpoint 模型名称，每个模型独立熔断
+     * @param call 模型调用，必须可以安全地重复执行
+     * @return 调用结果
+     * @throws ModelCallException 熔断打开、超过截止时间或调用失败时抛出
+     */
+    public <T> T execute(String endpoint, Callable<T> call) {
+        return execute(endpoint, config.getTimeoutMillis(), call);
+    }
+
+    /**
+     * 执行模型调用
+     *
+     * @param endpoint 模型名称，每个模型独立熔断
+     * @param timeoutMillis 截止时间（毫秒），含全部重试和退避
+     * @param call 模型调用，必须可以安全地重复执行
+     * @return 调用结果
+     * @throws ModelCallException 熔断打开、超过截止时间或调用失败时抛出
+     */
+    public <T> T execute(String endpoint, long timeoutMillis, Callable<T> call) {
+        if (!config.isEnabled()) {
+            return callDirectly(endpoint, call);
+        }
+
+        Endpoint state = endpoint(endpoint);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (int attempt = 1; ; attempt++) {
+            if (!state.breaker.tryAcquirePermission()) {
+                state.rejected.increment();
+                throw new ModelCallException(ModelCallException.Reason.CIRCUIT_OPEN, endpoint,
+                        "模型服务暂时不可用，请稍后重试", null);
+            }
+
+            Throwable failure;
+            try {
+                T result = attempt(state, call, deadline);
+                state.breaker.onSuccess();
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                state.breaker.onSuccess();
+                throw new ModelCallException(ModelCallException.Reason.FAILED, endpoint, "模型调用被中断", e);
+            } catch (Throwable e) {
+                failure = e;
+            }
+
+            boolean retryable = isRetryable(failure);
+            if (retryable) {
+                state.breaker.onFailure();
+            } else {
+                // 请求本身有误时服务端是可用的，不计入熔断
+                state.breaker.onSuccess();
+                throw new ModelCallException(ModelCallException.Reason.FAILED, endpoint,
+                        "模型调用失败: " + failure.getMessage(), failure);
+            }
+
+            long remaining = deadline - System.nanoTime();
+            long backoff = backoffNanos(attempt);
+            if (remaining <= 0 || attempt >= config.getMaxAttempts() || backoff >= remaining) {
+                if (remaining <= 0 || failure instanceof TimeoutException) {
+                    throw new ModelCallException(ModelCallException.Reason.DEADLINE_EXCEEDED, endpoint,
+                            "模型响应超时", failure);
+                }
+                throw new ModelCallException(ModelCallException.Reason.UNAVAILABLE, endpoint,
+                        "模型服务暂时不可用: " + failure.getMessage(), failure);
+            }
+
+            state.retries.increment();
+            logger.warn("模型调用失败，{}毫秒后重试: endpoint={}, attempt={}, error={}",
+                    TimeUnit.NANOSECONDS.toMillis(backoff), endpoint, attempt, failure.toString());
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ModelCallException(ModelCallException.Reason.FAILED, endpoint, "模型调用被中断", e);
+            }
+        }
+    }
+
+    /**
+     * 只尝试一次执行模型调用，不重试、不对冲
+     *
+     * 超过截止时间后调用线程不再等待，但不中断调用，已经开始的函数调用可以执行完。
+     * 失败同样计入熔断器，熔断打开时直接拒绝。
+     *
+     * @param endpoint 模型名称，每个模型独立熔断
+     * @param timeoutMillis 截止时间（毫秒）
+     * @param call 模型调用，可以有副作用
+     * @return 调用结果
+     * @throws ModelCallException 熔断打开、超过截止时间或调用失败时抛出
+     */
+    public <T> T executeOnce(String endpoint, long timeoutMillis, Callable<T> call) {
+        if (!config.isEnabled()) {
+            return callDirectly(endpoint, call);
+        }
+
+        Endpoint state = endpoint(endpoint);
+        if (!state.breaker.tryAcquirePermission()) {
+            state.rejected.increment();
+            throw new ModelCallException(ModelCallException.Reason.CIRCUIT_OPEN, endpoint,
+                    "模型服务暂时不可用，请稍后重试", null);
+        }
+
+        Future<T> future = executor.submit(task(state, call));
+        try {
+            T result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            state.breaker.onSuccess();
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state.breaker.onSuccess();
+            throw new ModelCallException(ModelCallException.Reason.FAILED, endpoint, "模型调用被中断", e);
+        } catch (TimeoutException e) {
+            state.breaker.onFailure();
+            throw new ModelCallException(ModelCallException.Reason.DEADLINE_EXCEEDED, endpoint, "模型响应超时", e);
+        } catch (ExecutionException e) {
+            Throwable failure = e.getCause() != null ? e.getCause() : e;
+            if (isRetryable(failure)) {
+                state.breaker.onFailure();
+                throw new ModelCallException(ModelCallException.Reason.UNAVAILABLE, endpoint,
+                        "模型服务暂时不可用: " + failure.getMessage(), failure);
+            }
+            state.breaker.onSuccess();
+            throw new ModelCallException(ModelCallException.Reason.FAILED, endpoint,
+                    "模型调用失败: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * 获取模型的熔断器状态
+     *
+     * @param endpoint 模型名称
+     * @return 熔断器状态，没有调用过的模型为CLOSED
+     */
+    public CircuitBreaker.State getState(String endpoint) {
+        Endpoint state = endpoints.get(endpoint);
+        return state != null ? state.breaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 执行一次尝试，超过对冲延迟仍未返回时再发起一次相同调用
+     */
+    private <T> T attempt(Endpoint state, Callable<T> call, long deadline) throws Exception {
+        long start = System.nanoTime();
+        long attemptDeadline = start + Math.min(deadline - start,
+                TimeUnit.MILLISECONDS.toNanos(config.getAttemptTimeoutMillis()));
+        long hedgeDelay = state.hedgeDelayNanos();
+        boolean canHedge = hedgeDelay >= 0 && hedgeDelay < attemptDeadline - start;
+        long hedgeAt = start + hedgeDelay;
+
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Future<T>> futures = new ArrayList<>(2);
+        futures.add(submit(completion, state, call));
+        int pending = 1;
+        Exception failure = null;
+        try {
+            while (pending > 0) {
+                long now = System.nanoTime();
+                if (now - attemptDeadline >= 0) {
+                    throw new TimeoutException("模型调用超时");
+                }
+                long waitUntil = canHedge ? hedgeAt : attemptDeadline;
+                Future<T> done = completion.poll(Math.max(0L, waitUntil - now), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (canHedge && System.nanoTime() - hedgeAt >= 0) {
+                        canHedge = false;
+                        // 熔断器不在关闭状态时不对冲
+                        if (state.breaker.getState() == CircuitBreaker.State.CLOSED) {
+                            state.hedges.increment();
+                            futures.add(submit(completion, state, call));
+                            pending++;
+                        }
+                    }
+                    continue;
+                }
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+            throw failure;
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private <T> Future<T> submit(ExecutorCompletionService<T> completion, Endpoint state, Callable<T> call) {
+        return completion.submit(task(state, call));
+    }
+
+    private <T> Callable<T> task(Endpoint state, Callable<T> call) {
+        // 把调用线程的观测和追踪上下文带到虚拟线程
+        Callable<T> task = snapshotFactory.captureAll().wrap(call);
+        return () -> {
+            long start = System.nanoTime();
+            T result = task.call();
+            state.recordLatency(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    private static <T> T callDirectly(String endpoint, Callable<T> call) {
+        try {
+            return call.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ModelCallException(ModelCallException.Reason.FAILED, endpoint,
+                    "模型调用失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 第n次失败后的退避时间：在[0, min(上限, 基准 * 2^(n-1)))内随机取值
+     */
+    private long backoffNanos(int attempt) {
+        long ceiling = Math.min(config.getMaxBackoffMillis(),
+                config.getInitialBackoffMillis() << Math.min(attempt - 1, 20));
+        return ceiling > 0 ? TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(ceiling)) : 0L;
+    }
+
+    /**
+     * 超时、网络错误和服务端错误可以重试，请求错误（4xx）不重试
+     */
+    static boolean isRetryable(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof TransientAiException
+                    || t instanceof ResourceAccessException || t instanceof HttpServerErrorException
+                    || t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Endpoint endpoint(String name) {
+        Endpoint state = endpoints.get(name);
+        if (state != null) {
+            return state;
+        }
+        return endpoints.computeIfAbsent(name, key -> new Endpoint(key, config, meterRegistry));
+    }
+
+    /**
+     * 单个模型的熔断器、延迟窗口和指标
+     */
+    private static class Endpoint {
+
+        private final CircuitBreaker breaker;
+        private final SmartCustomProperties.Resilience.Hedge hedge;
+        private final AtomicReference<LatencyHistogram> latency = new AtomicReference<>(new LatencyHistogram());
+        private volatile LatencyHistogram previousLatency;
+        private final Counter retries;
+        private final Counter hedges;
+        private final Counter rejected;
+
+        private Endpoint(String name, SmartCustomProperties.Resilience config, MeterRegistry meterRegistry) {
+            SmartCustomProperties.Resilience.CircuitBreaker breakerConfig = config.getCircuitBreaker();
+            this.breaker = new CircuitBreaker(breakerConfig.getFailureRateThreshold(),
+                    breakerConfig.getSlidingWindowSize(), breakerConfig.getMinimumCalls(),
+                    breakerConfig.getOpenDurationMillis(), breakerConfig.getHalfOpenCalls());
+            this.hedge = config.getHedge();
+            this.retries = Counter.builder("smartcustom.model.retries")
+                    .description("模型调用重试次数")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            this.hedges = Counter.builder("smartcustom.model.hedges")
+                    .description("模型调用对冲请求次数")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("smartcustom.model.circuit.rejected")
+                    .description("熔断打开时被拒绝的模型调用数")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            Gauge.builder("smartcustom.model.circuit.state", breaker, b -> b.getState().ordinal())
+                    .description("熔断器状态：0关闭，1半开，2打开")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+        }
+
+        private void recordLatency(long nanos) {
+            LatencyHistogram current = latency.get();
+            current.record(nanos, TimeUnit.NANOSECONDS);
+            if (current.getCount() >= LATENCY_WINDOW && latency.compareAndSet(current, new LatencyHistogram())) {
+                previousLatency = current;
+            }
+        }
+
+        /**
+         * 对冲延迟
+         *
+         * @return 延迟纳秒数，未启用对冲或样本不足时返回-1
+         */
+        private long hedgeDelayNanos() {
+            if (!hedge.isEnabled()) {
+                return -1L;
+            }
+            LatencyHistogram window = previousLatency;
+            if (window == null) {
+                window = latency.get();
+                if (window.getCount() < hedge.getMinSamples()) {
+                    return -1L;
+                }
+            }
+            double p95Millis = Math.max(hedge.getMinDelayMillis(), window.getPercentileMillis(0.95));
+            return (long) (p95Millis * 1_000_000L);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.smartcustom.routing;
+
+import org.springframework.ai.chat.client.ChatClient;
+
+/**
+ * 一次请求的模型路由结果
+ *
+ * @author SmartCustom Team
+ */
+public class ModelRoute {
+
+    /**
+     * 选择该模型的原因
+     */
+    public enum Reason {
+        /**
+         * 使用请求指定的模型
+         */
+        REQUESTED,
+        /**
+         * 请求的模型不可用，使用默认模型
+         */
+        DEFAULT,
+        /**
+         * 简单意图，使用快速模型
+         */
+        FAST
+    }
+
+    private final String model;
+    private final double temperature;
+    private final int maxTokens;
+    private final Reason reason;
+    private final ChatClient chatClient;
+
+    public ModelRoute(String model, double temperature, int maxTokens, Reason reason, ChatClient chatClient) {
+        this.model = model;
+        this.temperature = temperature;
+        this.maxTokens = maxTokens;
+        this.reason = reason;
+        this.chatClient = chatClient;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * 已按模型参数预先配置好的聊天客户端
+     */
+    public ChatClient getChatClient() {
+        return chatClient;
+    }
+}
@@ -0,0 +1,159 @@
+package com.smartcustom.routing;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.config.SpringAiConfig;
+import com.smartcustom.model.dto.ChatRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模型路由
+ *
+ * 按请求中的model、temperature和maxTokens选择模型参数，未指定模型的问候、致谢等简单意图改用快速模型。
+ * 每种模型参数组合对应一个预先构建的ChatClient，参数作为客户端默认选项，
+ * 请求时不再逐次构建选项对象。温度按0.1取整、令牌数向上取到几个固定档位并按上限截断，
+ * 模型只能取允许列表中的值，客户端池的大小因此有界。
+ * 每个客户端从自动配置的原型ChatClient.Builder取一个新实例构建，保留其中的定制器、顾问和观测配置。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class ModelRouter {
+
+    private static final double MAX_TEMPERATURE = 2.0;
+
+    /**
+     * 令牌数档位，请求的令牌数向上取到最近的档位
+     */
+    private static final int[] MAX_TOKENS_STEPS = {256, 512, 1024, 2048, 4096};
+
+    private final ObjectProvider<ChatClient.Builder> chatClientBuilders;
+    private final SmartCustomProperties.Routing config;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> allowedModels;
+
+    private final Map<String, ChatClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, Counter> routeCounters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ModelRouter(ObjectProvider<ChatClient.Builder> chatClientBuilders, SmartCustomProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.chatClientBuilders = chatClientBuilders;
+        this.config = properties.getRouting();
+        this.meterRegistry = meterRegistry;
+        this.allowedModels = new HashSet<>(Arrays.asList(config.getAllowedModels()));
+        this.allowedModels.add(config.getDefaultModel());
+        if (config.getFastModel() != null) {
+            this.allowedModels.add(config.getFastModel());
+        }
+    }
+
+    /**
+     * 为请求选择模型
+     *
+     * @param request 聊天请求
+     * @return 路由结果，路由关闭时返回null，由调用方使用默认客户端
+     */
+    public ModelRoute route(ChatRequest request) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+
+        String model;
+        ModelRoute.Reason reason;
+        if (request.getModel() != null && allowedModels.contains(request.getModel())) {
+            model = request.getModel();
+            reason = ModelRoute.Reason.REQUESTED;
+        } else if (config.getFastModel() != null && isSimpleIntent(request.getMessage())) {
+            model = config.getFastModel();
+            reason = ModelRoute.Reason.FAST;
+        } else {
+            model = config.getDefaultModel();
+            reason = ModelRoute.Reason.DEFAULT;
+        }
+
+        double temperature = Math.round(Math.min(MAX_TEMPERATURE, Math.max(0, request.getTemperature())) * 10) / 10.0;
+        int maxTokens = request.getMaxTokens() > 0
+                ? Math.min(roundUpMaxTokens(request.getMaxTokens()), config.getMaxTokensLimit())
+                : config.getMaxTokensLimit();
+
+        routeCounter(model, reason).increment();
+        return new ModelRoute(model, temperature, maxTokens, reason, client(model, temperature, maxTokens));
+    }
+
+    /**
+     * 判断消息是否为简单意图：消息较短且包含问候、致谢等关键词
+     */
+    boolean isSimpleIntent(String message) {
+        if (message == null) {
+            return false;
+        }
+        String text = message.strip();
+        if (text.isEmpty() || text.length() > config.getFastMaxLength()) {
+            return false;
+        }
+        for (String keyword : config.getFastKeywords()) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int roundUpMaxTokens(int maxTokens) {
+        for (int step : MAX_TOKENS_STEPS) {
+            if (maxTokens <= step) {
+                return step;
+            }
+        }
+        return maxTokens;
+    }
+
+    int getPoolSize() {
+        return clients.size();
+    }
+
+    private ChatClient client(String model, double temperature, int maxTokens) {
+        String profile = model + "|" + temperature + "|" + maxTokens;
+        ChatClient client = clients.get(profile);
+        if (client != null) {
+            return client;
+        }
+        if (clients.size() >= config.getMaxClients()) {
+            // 池已满时不再缓存，仍然按请求参数构建
+            return build(model, temperature, maxTokens);
+        }
+        return clients.computeIfAbsent(profile, key -> build(model, temperature, maxTokens));
+    }
+
+    private ChatClient build(String model, double temperature, int maxTokens) {
+        // 构建器是原型作用域，每次取得的都是新实例，设置默认选项不会影响其他客户端
+        return chatClientBuilders.getObject()
+                .defaultSystem(SpringAiConfig.DEFAULT_SYSTEM_PROMPT)
+                .defaultOptions(OpenAiChatOptions.builder()
+                        .withModel(model)
+                        .withTemperature((float) temperature)
+                        .withMaxTokens(maxTokens)
+                        .build())
+                .build();
+    }
+
+    private Counter routeCounter(String model, ModelRoute.Reason reason) {
+        return routeCounters.computeIfAbsent(model + "/" + reason, key -> Counter.builder("smartcustom.model.routes")
+                .description("按模型和路由原因统计的请求数")
+                .tag("model", model)
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry));
+    }
+}
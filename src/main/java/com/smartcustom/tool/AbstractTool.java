@@ -1,7 +1,10 @@
 package com.smartcustom.tool;
 
+import com.smartcustom.logging.SamplingTurboFilter;
+import com.smartcustom.metrics.ToolMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -19,6 +22,7 @@ public abstract class AbstractTool implements Tool {
     private String description;
     private Map<String, Object> parameters;
     private boolean enabled;
+    private ToolMetrics toolMetrics;
     
     protected AbstractTool(String name, String description) {
         this.name = name;
@@ -67,21 +71,62 @@ public abstract class AbstractTool implements Tool {
         this.enabled = enabled;
     }
     
+    /**
+     * 设置工具执行指标，未设置时不记录指标
+     * 
+     * @param toolMetrics 工具执行指标
+     */
+    @Autowired(required = false)
+    public void setToolMetrics(ToolMetrics toolMetrics) {
+        this.toolMetrics = toolMetrics;
+    }
+    
     @Override
     public ToolResult execute(Map<String, Object> parameters) {
         if (!isEnabled()) {
             return ToolResult.error("工具已禁用: " + getName());
         }
         
+        ToolMetrics metrics = this.toolMetrics;
+        long startNanos = metrics != null ? metrics.start(getName()) : 0L;
+        boolean success = false;
+        Throwable error = null;
         try {
-            logger.info("执行工具: {}, 参数: {}", getName(), parameters);
+            // 每次工具调用都会经过这里，参数表只在DEBUG级别打印
+            if (logger.isDebugEnabled()) {
+                logger.debug(SamplingTurboFilter.SAMPLED, "执行工具: {}, 参数: {}", getName(), parameters);
+            }
             ToolResult result = doExecute(parameters);
-            logger.info("工具执行完成: {}, 成功: {}", getName(), result.isSuccess());
+            success = result.isSuccess();
+            // 完成日志为INFO级别，生产环境按smartcustom.logging.sample-rate采样
+            logger.info(SamplingTurboFilter.SAMPLED, "工具执行完成: {}, 成功: {}", getName(), success);
             return result;
         } catch (Exception e) {
+            error = e;
             logger.error("工具执行失败: {}, 错误: {}", getName(), e.getMessage(), e);
             return ToolResult.error("工具执行失败: " + e.getMessage());
+        } finally {
+            if (metrics != null) {
+                metrics.stop(getName(), getOperation(parameters), startNanos, success, error);
+            }
+        }
+    }
+    
+    /**
+     * 获取本次执行的操作名称，用于指标标签
+     * 
+     * @param parameters 工具参数
+     * @return 操作名称，没有时返回null
+     */
+    protected String getOperation(Map<String, Object> parameters) {
+        if (parameters == null) {
+            return null;
+        }
+        Object operation = parameters.get("action");
+        if (operation == null) {
+            operation = parameters.get("operation");
         }
+        return operation instanceof String ? (String) operation : null;
     }
     
     /**
@@ -38,6 +38,25 @@ public interface Tool {
      */
     ToolResult execute(Map<String, Object> parameters);
     
+    /**
+     * 本次调用的结果是否可以短时间缓存，只读查询可以返回true
+     * 
+     * @param parameters 工具参数
+     * @return 是否可以缓存
+     */
+    default boolean isCacheable(Map<String, Object> parameters) {
+        return false;
+    }
+    
+    /**
+     * 工具的所有操作是否都只读，只读工具被重复调用没有副作用
+     * 
+     * @return 是否只读
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+    
     /**
      * 是否启用
      * 
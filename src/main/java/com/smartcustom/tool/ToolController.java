@@ -1,5 +1,6 @@
 package com.smartcustom.controller;
 
+import com.smartcustom.metrics.ToolMetrics;
 import com.smartcustom.service.ToolManager;
 import com.smartcustom.tool.Tool;
 import com.smartcustom.tool.ToolResult;
@@ -22,10 +23,12 @@ import java.util.Map;
 public class ToolController {
     
     private final ToolManager toolManager;
+    private final ToolMetrics toolMetrics;
     
     @Autowired
-    public ToolController(ToolManager toolManager) {
+    public ToolController(ToolManager toolManager, ToolMetrics toolMetrics) {
         this.toolManager = toolManager;
+        this.toolMetrics = toolMetrics;
     }
     
     /**
@@ -50,6 +53,16 @@ public class ToolController {
         return ResponseEntity.ok(tools);
     }
     
+    /**
+     * 获取各工具的执行汇总
+     * 
+     * @return 执行次数、失败数、执行中数量及p50/p95/p99耗时
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<ToolMetrics.ToolStats>> getToolStats() {
+        return ResponseEntity.ok(toolMetrics.getStats());
+    }
+    
     /**
      * 获取指定工具
      * 
@@ -0,0 +1,109 @@
+package com.smartcustom.tool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcustom.service.ToolManager;
+import org.springframework.ai.model.function.FunctionCallback;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把工具暴露给模型的函数回调
+ *
+ * 模型发起的函数调用经{@link ToolManager#executeTool}执行，与规则意图和工具接口走同一路径，
+ * 可以命中{@link ToolResultCache}中的缓存和预取结果。
+ * 输入参数的JSON Schema由工具的参数定义生成：值为字符串的参数视为字符串参数，
+ * 值为对象定义（带properties）的参数视为一种操作，其属性合并到顶层，有多种操作时操作名作为action参数的取值。
+ *
+ * @author SmartCustom Team
+ */
+public class ToolFunctionCallback implements FunctionCallback {
+
+    private static final TypeReference<Map<String, Object>> PARAMETERS_TYPE = new TypeReference<>() {
+    };
+
+    private final String name;
+    private final String description;
+    private final String inputTypeSchema;
+    private final ToolManager toolManager;
+    private final ObjectMapper objectMapper;
+
+    public ToolFunctionCallback(Tool tool, ToolManager toolManager, ObjectMapper objectMapper) {
+        this.name = tool.getName();
+        this.description = tool.getDescription();
+        this.toolManager = toolManager;
+        this.objectMapper = objectMapper;
+        this.inputTypeSchema = toJson(inputSchema(tool.getParameters()));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String getInputTypeSchema() {
+        return inputTypeSchema;
+    }
+
+    @Override
+    public String call(String functionInput) {
+        Map<String, Object> parameters;
+        try {
+            parameters = functionInput == null || functionInput.isBlank()
+                    ? new LinkedHashMap<>()
+                    : objectMapper.readValue(functionInput, PARAMETERS_TYPE);
+        } catch (JsonProcessingException e) {
+            return toJson(ToolResult.error("工具参数格式错误: " + e.getOriginalMessage()));
+        }
+        return toJson(toolManager.executeTool(name, parameters));
+    }
+
+    static Map<String, Object> inputSchema(Map<String, Object> parameters) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> actions = new ArrayList<>();
+        if (parameters != null) {
+            parameters.forEach((parameter, definition) -> {
+                if (definition instanceof Map<?, ?> map && map.get("properties") instanceof Map<?, ?> nested) {
+                    actions.add(parameter);
+                    nested.forEach((key, value) -> {
+                        // 旧的参数定义把required写在properties中，不是参数
+                        if (value instanceof Map<?, ?>) {
+                            properties.putIfAbsent((String) key, value);
+                        }
+                    });
+                } else if (definition instanceof Map<?, ?> map) {
+                    properties.put(parameter, map);
+                } else {
+                    properties.put(parameter, Map.of("type", "string", "description", String.valueOf(definition)));
+                }
+            });
+        }
+        // 只有一种操作时工具不读取action参数
+        if (actions.size() > 1) {
+            properties.putIfAbsent("action", Map.of("type", "string", "description", "操作类型", "enum", actions));
+        }
+
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", properties);
+        return schema;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("工具结果序列化失败: " + name, e);
+        }
+    }
+}
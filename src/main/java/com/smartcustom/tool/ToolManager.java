@@ -2,6 +2,7 @@ package com.smartcustom.service;
 
 import com.smartcustom.tool.Tool;
 import com.smartcustom.tool.ToolResult;
+import org.springframework.ai.model.function.FunctionCallback;
 
 import java.util.List;
 import java.util.Map;
@@ -51,6 +52,22 @@ public interface ToolManager {
      */
     List<Tool> getEnabledTools();
     
+    /**
+     * 从工具名称列表中筛选出已注册且已启用的工具
+     * 
+     * @param toolNames 工具名称列表
+     * @return 可用的工具名称，保持原有顺序
+     */
+    List<String> resolveTools(List<String> toolNames);
+    
+    /**
+     * 获取工具对应的模型函数回调，模型发起的函数调用经{@link #executeTool}执行
+     * 
+     * @param toolNames 工具名称列表，通常为{@link #resolveTools}的结果
+     * @return 函数回调，跳过不存在的工具
+     */
+    List<FunctionCallback> getFunctionCallbacks(List<String> toolNames);
+    
     /**
      * 执行工具
      * 
@@ -60,6 +77,15 @@ public interface ToolManager {
      */
     ToolResult executeTool(String toolName, Map<String, Object> parameters);
     
+    /**
+     * 预取工具结果，可缓存的调用在后台执行并写入结果缓存，其他调用忽略
+     * 
+     * @param toolName 工具名称
+     * @param parameters 工具参数
+     * @return 是否发起了预取
+     */
+    boolean prefetchTool(String toolName, Map<String, Object> parameters);
+    
     /**
      * 启用工具
      * 
@@ -1,9 +1,16 @@
 package com.smartcustom.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smartcustom.service.ToolManager;
 import com.smartcustom.tool.AbstractTool;
 import com.smartcustom.tool.Tool;
+import com.smartcustom.tool.ToolFunctionCallback;
 import com.smartcustom.tool.ToolResult;
+import com.smartcustom.tool.ToolResultCache;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.ai.model.function.FunctionCallback;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -19,9 +26,57 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class ToolManagerImpl implements ToolManager {
     
+    /**
+     * 缓存的工具组合筛选结果数上限，超过后不再缓存新的组合
+     */
+    private static final int MAX_RESOLVED_TOOL_SETS = 64;
+    
     private final Map<String, Tool> tools = new ConcurrentHashMap<>();
     
+    // 按请求的工具组合缓存筛选结果，工具注册或启用状态变化时清空
+    private final Map<List<String>, List<String>> resolvedTools = new ConcurrentHashMap<>();
+    
+    // 模型函数回调，按工具名称在首次使用时创建
+    private final Map<String, FunctionCallback> functionCallbacks = new ConcurrentHashMap<>();
+    
+    private Tracer tracer = Tracer.NOOP;
+    
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    private ToolResultCache resultCache;
+    
+    /**
+     * 设置追踪器，未设置时不创建span
+     * 
+     * @param tracer 追踪器
+     */
+    @Autowired(required = false)
+    public void setTracer(Tracer tracer) {
+        this.tracer = tracer;
+    }
+    
+    /**
+     * 设置函数调用参数和结果的JSON序列化，未设置时使用默认配置
+     * 
+     * @param objectMapper JSON序列化
+     */
+    @Autowired(required = false)
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * 设置工具结果缓存，未设置时每次调用都执行工具
+     * 
+     * @param resultCache 工具结果缓存
+     */
+    @Autowired(required = false)
+    public void setResultCache(ToolResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+    
     @Override
+    @CacheEvict(value = {"toolCache", "enabledToolCache"}, allEntries = true)
     public boolean registerTool(Tool tool) {
         if (tool == null || tool.getName() == null || tool.getName().trim().isEmpty()) {
             return false;
@@ -33,13 +88,18 @@ public class ToolManagerImpl implements ToolManager {
         }
         
         tools.put(toolName, tool);
+        resolvedTools.clear();
         return true;
     }
     
     @Override
     @CacheEvict(value = {"toolCache", "enabledToolCache"}, allEntries = true)
     public boolean unregisterTool(String toolName) {
-        return tools.remove(toolName) != null;
+        invalidateResults(toolName);
+        boolean removed = tools.remove(toolName) != null;
+        functionCallbacks.remove(toolName);
+        resolvedTools.clear();
+        return removed;
     }
     
     @Override
@@ -62,6 +122,40 @@ public class ToolManagerImpl implements ToolManager {
                 .toList();
     }
     
+    @Override
+    public List<String> resolveTools(List<String> toolNames) {
+        List<String> resolved = resolvedTools.get(toolNames);
+        if (resolved != null) {
+            return resolved;
+        }
+        
+        resolved = toolNames.stream()
+                .filter(toolName -> {
+                    Tool tool = tools.get(toolName);
+                    return tool != null && tool.isEnabled();
+                })
+                .distinct()
+                .toList();
+        if (resolvedTools.size() < MAX_RESOLVED_TOOL_SETS) {
+            // 复制调用方的列表作为键，避免调用方之后修改列表
+            resolvedTools.put(List.copyOf(toolNames), resolved);
+        }
+        return resolved;
+    }
+    
+    @Override
+    public List<FunctionCallback> getFunctionCallbacks(List<String> toolNames) {
+        List<FunctionCallback> callbacks = new ArrayList<>(toolNames.size());
+        for (String toolName : toolNames) {
+            Tool tool = tools.get(toolName);
+            if (tool != null) {
+                callbacks.add(functionCallbacks.computeIfAbsent(toolName,
+                        name -> new ToolFunctionCallback(tool, this, objectMapper)));
+            }
+        }
+        return callbacks;
+    }
+    
     @Override
     public ToolResult executeTool(String toolName, Map<String, Object> parameters) {
         Tool tool = getTool(toolName);
@@ -73,11 +167,43 @@ public class ToolManagerImpl implements ToolManager {
             return ToolResult.error("工具已禁用: " + toolName);
         }
         
-        return tool.execute(parameters);
+        if (resultCache != null && tool.isCacheable(parameters)) {
+            return resultCache.get(toolName, parameters, () -> invoke(tool, toolName, parameters));
+        }
+        
+        ToolResult result = invoke(tool, toolName, parameters);
+        if (result.isSuccess()) {
+            // 写操作可能改变查询结果
+            invalidateResults(toolName);
+        }
+        return result;
     }
     
     @Override
-    @CacheEvict(value = "enabledToolCache", allEntries = true)
+    public boolean prefetchTool(String toolName, Map<String, Object> parameters) {
+        Tool tool = getTool(toolName);
+        if (resultCache == null || tool == null || !tool.isEnabled() || !tool.isCacheable(parameters)) {
+            return false;
+        }
+        return resultCache.prefetch(toolName, parameters, () -> invoke(tool, toolName, parameters));
+    }
+    
+    private ToolResult invoke(Tool tool, String toolName, Map<String, Object> parameters) {
+        Span span = tracer.nextSpan().name("tool.execute").tag("tool", toolName).start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            ToolResult result = tool.execute(parameters);
+            span.tag("outcome", result.isSuccess() ? "success" : "failure");
+            return result;
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+    
+    @Override
+    @CacheEvict(value = {"enabledToolCache"}, allEntries = true)
     public boolean enableTool(String toolName) {
         Tool tool = getTool(toolName);
         if (tool == null) {
@@ -86,6 +212,7 @@ public class ToolManagerImpl implements ToolManager {
         
         if (tool instanceof AbstractTool) {
             ((AbstractTool) tool).setEnabled(true);
+            resolvedTools.clear();
             return true;
         }
         
@@ -93,7 +220,7 @@ public class ToolManagerImpl implements ToolManager {
     }
     
     @Override
-    @CacheEvict(value = "enabledToolCache", allEntries = true)
+    @CacheEvict(value = {"enabledToolCache"}, allEntries = true)
     public boolean disableTool(String toolName) {
         Tool tool = getTool(toolName);
         if (tool == null) {
@@ -102,6 +229,8 @@ public class ToolManagerImpl implements ToolManager {
         
         if (tool instanceof AbstractTool) {
             ((AbstractTool) tool).setEnabled(false);
+            resolvedTools.clear();
+            invalidateResults(toolName);
             return true;
         }
         
@@ -112,4 +241,10 @@ public class ToolManagerImpl implements ToolManager {
     public boolean hasTool(String toolName) {
         return tools.containsKey(toolName);
     }
+    
+    private void invalidateResults(String toolName) {
+        if (resultCache != null) {
+            resultCache.invalidate(toolName);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.smartcustom.tool;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.service.ToolManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 工具结果预取
+ *
+ * 用户消息中出现订单号、运单号或退款单号时，模型下一步大概率会调用订单查询或退款工具。
+ * 在模型调用之前从消息中提取这些编号，把对应的只读查询提交到后台执行并写入
+ * {@link ToolResultCache}，模型发起函数调用时直接取得结果，工具耗时与模型耗时重叠。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class ToolPrefetcher {
+
+    static final String ORDER_TOOL = "order-query";
+    static final String REFUND_TOOL = "refund";
+
+    private static final Pattern ORDER_ID = Pattern.compile("ORD\\d{6,}", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TRACKING_NUMBER = Pattern.compile(
+            "\\b(?:SF|YT|ZTO|YD|JD|JT|EMS)\\d{10,15}\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern REFUND_ID = Pattern.compile("REF[0-9A-Z]{13}", Pattern.CASE_INSENSITIVE);
+
+    // 每条消息最多预取的次数，避免一条消息粘贴大量编号时占满线程池
+    private static final int MAX_PREFETCH = 3;
+
+    private final ToolManager toolManager;
+    private final SmartCustomProperties.Tool config;
+
+    @Autowired
+    public ToolPrefetcher(ToolManager toolManager, SmartCustomProperties properties) {
+        this.toolManager = toolManager;
+        this.config = properties.getTool();
+    }
+
+    /**
+     * 消息中是否包含订单号、运单号或退款单号
+     *
+     * @param message 用户消息
+     * @return 是否包含编号
+     */
+    public static boolean containsIdentifier(String message) {
+        return message != null && (ORDER_ID.matcher(message).find()
+                || TRACKING_NUMBER.matcher(message).find()
+                || REFUND_ID.matcher(message).find());
+    }
+
+    /**
+     * 根据消息中的编号预取工具结果
+     *
+     * @param message 用户消息
+     * @param availableTools 本轮可以使用的工具
+     * @return 发起的预取数
+     */
+    public int prefetch(String message, Collection<String> availableTools) {
+        if (!config.isPrefetch() || message == null || availableTools.isEmpty()) {
+            return 0;
+        }
+        int started = 0;
+        if (availableTools.contains(ORDER_TOOL)) {
+            started += prefetch(ORDER_ID, message, ORDER_TOOL, null, "order_id", MAX_PREFETCH - started);
+            started += prefetch(TRACKING_NUMBER, message, ORDER_TOOL, null, "tracking_number", MAX_PREFETCH - started);
+        }
+        if (availableTools.contains(REFUND_TOOL)) {
+            started += prefetch(REFUND_ID, message, REFUND_TOOL, "query", "refund_id", MAX_PREFETCH - started);
+        }
+        return started;
+    }
+
+    private int prefetch(Pattern pattern, String message, String toolName, String action, String parameter, int limit) {
+        int started = 0;
+        Matcher matcher = pattern.matcher(message);
+        while (started < limit && matcher.find()) {
+            String id = matcher.group().toUpperCase(Locale.ROOT);
+            // 参数与模型调用工具时的参数一致，才能命中同一缓存条目
+            Map<String, Object> parameters = action != null
+                    ? Map.of("action", action, parameter, id)
+                    : Map.of(parameter, id);
+            if (toolManager.prefetchTool(toolName, parameters)) {
+                started++;
+            }
+        }
+        return started;
+    }
+}
@@ -0,0 +1,242 @@
+package com.smartcustom.tool;
+
+import com.smartcustom.config.SmartCustomProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 只读工具结果缓存
+ *
+ * 按工具名称和参数缓存可缓存调用（{@link Tool#isCacheable}）的结果，有效期很短。
+ * 条目保存的是结果的Future，正在执行的调用也会被复用：预取发起后模型再调用同一工具，
+ * 会直接等待预取结果而不是重复执行。执行失败的结果不缓存。
+ *
+ * @author SmartCustom Team
+ */
+@Component
+public class ToolResultCache {
+
+    private final SmartCustomProperties.Tool.ResultCache config;
+    private final Executor backgroundExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // 按工具分组，工具被禁用或执行了写操作时整组失效
+    private final Map<String, Map<String, Entry>> tools = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ToolResultCache(SmartCustomProperties properties, MeterRegistry meterRegistry,
+                           @Qualifier("backgroundExecutor") Executor backgroundExecutor) {
+        this.config = properties.getTool().getResultCache();
+        this.backgroundExecutor = backgroundExecutor;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("smartcustom.tool.cache.size", this, ToolResultCache::size)
+                .description("工具结果缓存条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取工具结果，没有有效缓存时在调用线程执行
+     *
+     * @param toolName 工具名称
+     * @param parameters 工具参数
+     * @param loader 执行工具
+     * @return 执行结果
+     */
+    public ToolResult get(String toolName, Map<String, Object> parameters, Supplier<ToolResult> loader) {
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+        Map<String, Entry> entries = entries(toolName);
+        String key = key(parameters);
+        Entry entry = claim(entries, key);
+        if (entry == null) {
+            count(toolName, "miss");
+            return loader.get();
+        }
+        if (!entry.owned) {
+            count(toolName, "hit");
+            ToolResult result = await(entry);
+            return result != null ? result : loader.get();
+        }
+        count(toolName, "miss");
+        return load(entries, key, entry, loader);
+    }
+
+    /**
+     * 在后台执行工具并写入缓存，已有有效条目或缓存已满时忽略
+     *
+     * @param toolName 工具名称
+     * @param parameters 工具参数
+     * @param loader 执行工具
+     * @return 是否发起了预取
+     */
+    public boolean prefetch(String toolName, Map<String, Object> parameters, Supplier<ToolResult> loader) {
+        if (!config.isEnabled()) {
+            return false;
+        }
+        Map<String, Entry> entries = entries(toolName);
+        String key = key(parameters);
+        Entry entry = claim(entries, key);
+        if (entry == null || !entry.owned) {
+            return false;
+        }
+        try {
+            backgroundExecutor.execute(() -> load(entries, key, entry, loader));
+        } catch (RejectedExecutionException e) {
+            // 线程池已满时放弃预取，等待中的调用会自行执行
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            return false;
+        }
+        count(toolName, "prefetch");
+        return true;
+    }
+
+    /**
+     * 清除工具的全部缓存结果
+     *
+     * @param toolName 工具名称
+     */
+    public void invalidate(String toolName) {
+        tools.remove(toolName);
+    }
+
+    /**
+     * 清除已过期的条目
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        for (Map<String, Entry> entries : tools.values()) {
+            entries.values().removeIf(entry -> entry.isExpired(now));
+        }
+    }
+
+    /**
+     * 获取缓存条目数
+     *
+     * @return 条目数
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, Entry> entries : tools.values()) {
+            size += entries.size();
+        }
+        return size;
+    }
+
+    /**
+     * 取得有效条目，没有时登记一个由调用方负责执行的新条目
+     *
+     * @return 已有的或新登记的条目，缓存已满时返回null
+     */
+    private Entry claim(Map<String, Entry> entries, String key) {
+        long now = System.nanoTime();
+        Entry existing = entries.get(key);
+        if (existing != null && !existing.isExpired(now)) {
+            return existing.shared();
+        }
+        if (size() >= config.getMaxEntries()) {
+            evictExpired();
+            if (size() >= config.getMaxEntries()) {
+                return null;
+            }
+        }
+        Entry created = new Entry(now + TimeUnit.SECONDS.toNanos(config.getTtlSeconds()));
+        Entry current = entries.compute(key, (k, old) -> old != null && !old.isExpired(now) ? old : created);
+        return current == created ? created : current.shared();
+    }
+
+    private static ToolResult load(Map<String, Entry> entries, String key, Entry entry, Supplier<ToolResult> loader) {
+        ToolResult result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+        if (result == null || !result.isSuccess()) {
+            entries.remove(key, entry);
+        }
+        entry.future.complete(result);
+        return result;
+    }
+
+    /**
+     * 等待条目结果
+     *
+     * @return 执行结果，执行失败时返回null，由调用方重新执行
+     */
+    private static ToolResult await(Entry entry) {
+        try {
+            return entry.future.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    private Map<String, Entry> entries(String toolName) {
+        return tools.computeIfAbsent(toolName, name -> new ConcurrentHashMap<>());
+    }
+
+    private static String key(Map<String, Object> parameters) {
+        // 参数按名称排序，与参数表的遍历顺序无关
+        return parameters == null ? "{}" : new TreeMap<>(parameters).toString();
+    }
+
+    private void count(String toolName, String result) {
+        counters.computeIfAbsent(toolName + "/" + result, key -> Counter.builder("smartcustom.tool.cache")
+                .description("工具结果缓存访问次数")
+                .tag("tool", toolName)
+                .tag("result", result)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class Entry {
+
+        private final CompletableFuture<ToolResult> future;
+        private final long expiresAtNanos;
+
+        // 是否由本次调用登记，登记者负责执行工具并完成future
+        private final boolean owned;
+
+        private Entry(long expiresAtNanos) {
+            this(new CompletableFuture<>(), expiresAtNanos, true);
+        }
+
+        private Entry(CompletableFuture<ToolResult> future, long expiresAtNanos, boolean owned) {
+            this.future = future;
+            this.expiresAtNanos = expiresAtNanos;
+            this.owned = owned;
+        }
+
+        private Entry shared() {
+            return new Entry(future, expiresAtNanos, false);
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos > 0;
+        }
+    }
+}
@@ -58,6 +58,11 @@ public class CalculatorTool extends AbstractTool {
         addParameter("calculate", calculateParams);
     }
     
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+    
     @Override
     protected ToolResult doExecute(Map<String, Object> parameters) {
         String operation = (String) parameters.get("operation");
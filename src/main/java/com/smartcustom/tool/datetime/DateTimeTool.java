@@ -99,6 +99,11 @@ public class DateTimeTool extends AbstractTool {
         addParameter("add", addParams);
     }
     
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+    
     @Override
     protected ToolResult doExecute(Map<String, Object> parameters) {
         String action = (String) parameters.get("action");
@@ -2,6 +2,7 @@ package com.smartcustom.tool.invoice;
 
 import com.smartcustom.tool.AbstractTool;
 import com.smartcustom.tool.ToolResult;
+import com.smartcustom.util.IdGenerator;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -9,7 +10,6 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * 发票工具
@@ -121,9 +121,10 @@ public class InvoiceTool extends AbstractTool {
             }
             
             // 创建发票对象（实际应用中应保存到数据库）
-            String invoiceId = "INV-" + UUID.randomUUID().toString().substring(0, 8);
+            IdGenerator idGenerator = IdGenerator.getInstance();
+            String invoiceId = "INV-" + idGenerator.nextCompactId();
             Invoice invoice = new Invoice(
-                UUID.randomUUID().toString(),
+                idGenerator.nextCompactId(),
                 invoiceId,
                 "INV-" + System.currentTimeMillis(),
                 customerName,
@@ -177,9 +178,10 @@ public class InvoiceTool extends AbstractTool {
     private ToolResult listInvoices(Map<String, Object> parameters) {
         try {
             // 这里应该从数据库查询发票列表，为演示目的返回模拟数据
+            IdGenerator idGenerator = IdGenerator.getInstance();
             Invoice invoice1 = new Invoice(
-                UUID.randomUUID().toString(),
-                "INV-" + UUID.randomUUID().toString().substring(0, 8),
+                idGenerator.nextCompactId(),
+                "INV-" + idGenerator.nextCompactId(),
                 "INV-2023-001",
                 "客户A",
                 null, // customerEmail
@@ -190,8 +192,8 @@ public class InvoiceTool extends AbstractTool {
             );
             
             Invoice invoice2 = new Invoice(
-                UUID.randomUUID().toString(),
-                "INV-" + UUID.randomUUID().toString().substring(0, 8),
+                idGenerator.nextCompactId(),
+                "INV-" + idGenerator.nextCompactId(),
                 "INV-2023-002",
                 "客户B",
                 null, // customerEmail
@@ -24,6 +24,7 @@ public class OrderQueryTool extends AbstractTool {
         
         // 添加参数定义
         addParameter("order_id", "订单号");
+        addParameter("tracking_number", "运单号（没有订单号时可用运单号查询）");
         
         // 初始化模拟订单数据
         initMockData();
@@ -75,6 +76,16 @@ public class OrderQueryTool extends AbstractTool {
         ordersDatabase.put(order3.getOrderId(), order3);
     }
     
+    @Override
+    public boolean isCacheable(Map<String, Object> parameters) {
+        return true;
+    }
+    
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+    
     @Override
     protected ToolResult doExecute(Map<String, Object> parameters) {
         try {
@@ -82,13 +93,23 @@ public class OrderQueryTool extends AbstractTool {
             Thread.sleep(500);
             
             String orderId = (String) parameters.get("order_id");
-            if (orderId == null || orderId.trim().isEmpty()) {
+            String trackingNumber = (String) parameters.get("tracking_number");
+            if ((orderId == null || orderId.trim().isEmpty())
+                    && (trackingNumber == null || trackingNumber.trim().isEmpty())) {
                 return ToolResult.error("订单号不能为空");
             }
             
-            OrderInfo orderInfo = ordersDatabase.get(orderId);
-            if (orderInfo == null) {
-                return ToolResult.error("订单号 " + orderId + " 不存在，请检查订单号是否正确");
+            OrderInfo orderInfo;
+            if (orderId != null && !orderId.trim().isEmpty()) {
+                orderInfo = ordersDatabase.get(orderId);
+                if (orderInfo == null) {
+                    return ToolResult.error("订单号 " + orderId + " 不存在，请检查订单号是否正确");
+                }
+            } else {
+                orderInfo = findByTrackingNumber(trackingNumber);
+                if (orderInfo == null) {
+                    return ToolResult.error("运单号 " + trackingNumber + " 没有对应的订单，请检查运单号是否正确");
+                }
             }
             
             // 构建订单状态描述
@@ -108,6 +129,18 @@ public class OrderQueryTool extends AbstractTool {
         }
     }
     
+    /**
+     * 按运单号查找订单
+     */
+    private OrderInfo findByTrackingNumber(String trackingNumber) {
+        for (OrderInfo orderInfo : ordersDatabase.values()) {
+            if (trackingNumber.equalsIgnoreCase(orderInfo.getTrackingNumber())) {
+                return orderInfo;
+            }
+        }
+        return null;
+    }
+    
     /**
      * 获取订单状态描述
      */
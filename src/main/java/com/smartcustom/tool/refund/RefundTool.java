@@ -2,6 +2,7 @@ package com.smartcustom.tool.refund;
 
 import com.smartcustom.tool.AbstractTool;
 import com.smartcustom.tool.ToolResult;
+import com.smartcustom.util.IdGenerator;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -37,6 +38,12 @@ public class RefundTool extends AbstractTool {
         addParameter("description", "退款描述（可选）");
     }
     
+    @Override
+    public boolean isCacheable(Map<String, Object> parameters) {
+        Object action = parameters != null ? parameters.get("action") : null;
+        return "query".equals(action) || "get_reasons".equals(action);
+    }
+    
     @Override
     protected ToolResult doExecute(Map<String, Object> parameters) {
         try {
@@ -167,9 +174,7 @@ public class RefundTool extends AbstractTool {
      * 生成退款申请ID
      */
     private String generateRefundId() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String uuid = UUID.randomUUID().toString().replace("-", "").substring(0, 8).toUpperCase();
-        return "REF" + timestamp + uuid;
+        return "REF" + IdGenerator.getInstance().nextCompactId();
     }
     
     /**
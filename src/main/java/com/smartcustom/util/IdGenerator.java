@@ -0,0 +1,169 @@
+package com.smartcustom.util;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间有序ID生成器
+ *
+ * 64位ID布局：41位毫秒时间戳 | 10位节点ID | 12位序列号。
+ * 通过CAS更新状态，无锁且单调递增；同一毫秒内序列号用尽时借用下一毫秒。
+ * 紧凑字符串形式为13位定长Crockford Base32，字典序与数值序一致。
+ *
+ * @author SmartCustom Team
+ */
+public final class IdGenerator {
+
+    /**
+     * 自定义纪元：2023-01-01T00:00:00Z
+     */
+    private static final long EPOCH = 1672531200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int COMPACT_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+        }
+    }
+
+    private static final IdGenerator INSTANCE = new IdGenerator(resolveNodeId(
+            System.getProperty("smartcustom.node-id", System.getenv("SMARTCUSTOM_NODE_ID"))));
+
+    private final long nodeId;
+
+    /**
+     * 上次生成ID时的状态：(时间戳 << SEQUENCE_BITS) | 序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public IdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID必须在0到" + MAX_NODE_ID + "之间");
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * 获取全局ID生成器
+     *
+     * @return ID生成器
+     */
+    public static IdGenerator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 生成长整型ID
+     *
+     * @return ID
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            // 新的毫秒从序列号0开始；同一毫秒或时钟回拨时递增序列号，溢出进位到时间戳
+            long next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 生成紧凑字符串ID
+     *
+     * @return 13位字符串ID
+     */
+    public String nextCompactId() {
+        return toCompactString(nextId());
+    }
+
+    /**
+     * 将长整型ID转换为紧凑字符串
+     *
+     * @param id 长整型ID
+     * @return 13位字符串ID
+     */
+    public static String toCompactString(long id) {
+        char[] chars = new char[COMPACT_LENGTH];
+        for (int i = COMPACT_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 将紧凑字符串解析为长整型ID
+     *
+     * @param compactId 13位字符串ID
+     * @return 长整型ID
+     * @throws IllegalArgumentException 字符串不是合法的紧凑ID
+     */
+    public static long fromCompactString(String compactId) {
+        if (compactId == null || compactId.length() != COMPACT_LENGTH) {
+            throw new IllegalArgumentException("无效的紧凑ID: " + compactId);
+        }
+
+        long id = 0;
+        for (int i = 0; i < COMPACT_LENGTH; i++) {
+            char c = compactId.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            // 首位只承载64位中的最高4位
+            if (value < 0 || (i == 0 && value > 15)) {
+                throw new IllegalArgumentException("无效的紧凑ID: " + compactId);
+            }
+            id = (id << 5) | value;
+        }
+        return id;
+    }
+
+    /**
+     * 获取ID中的时间戳
+     *
+     * @param id 长整型ID
+     * @return 生成时间（毫秒）
+     */
+    public static long extractTimestamp(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * 解析节点ID，优先使用系统属性或环境变量，否则由主机名和进程号推导
+     *
+     * @param configured 系统属性smartcustom.node-id或环境变量SMARTCUSTOM_NODE_ID的值
+     * @return 节点ID
+     * @throws IllegalStateException 配置的值不是整数时抛出
+     */
+    static long resolveNodeId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            try {
+                return Long.parseLong(configured.trim()) & MAX_NODE_ID;
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("节点ID配置无效，smartcustom.node-id（SMARTCUSTOM_NODE_ID）必须是整数: "
+                        + configured, e);
+            }
+        }
+
+        long hash;
+        try {
+            hash = InetAddress.getLocalHost().getHostName().hashCode();
+        } catch (Exception e) {
+            hash = 0;
+        }
+        return (hash * 31 + ProcessHandle.current().pid()) & MAX_NODE_ID;
+    }
+}
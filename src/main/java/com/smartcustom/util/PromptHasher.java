@@ -0,0 +1,125 @@
+package com.smartcustom.util;
+
+/**
+ * 提示词快速哈希
+ *
+ * 直接按字符流计算128位哈希，不需要先编码为字节数组：每4个字符拼成一个64位字，
+ * 送入两条独立的乘法-旋转混合通道（与xxHash64的轮函数相同），最后做雪崩混合。
+ * 每段输入都带长度分隔，"ab"+"c"与"a"+"bc"得到不同的结果。
+ * 非加密哈希，只用于缓存键。实例不是线程安全的，每次计算新建一个。
+ *
+ * @author SmartCustom Team
+ */
+public final class PromptHasher {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+
+    private long lane1 = PRIME1 + PRIME2;
+    private long lane2 = PRIME2 - PRIME3;
+    private long words;
+
+    /**
+     * 加入一段文本，null与空串视为不同输入
+     */
+    public PromptHasher put(CharSequence text) {
+        if (text == null) {
+            return put(-1L);
+        }
+        int length = text.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            mix((long) text.charAt(i)
+                    | (long) text.charAt(i + 1) << 16
+                    | (long) text.charAt(i + 2) << 32
+                    | (long) text.charAt(i + 3) << 48);
+        }
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            tail |= (long) text.charAt(i) << shift;
+        }
+        mix(tail);
+        return put((long) length);
+    }
+
+    public PromptHasher put(long value) {
+        mix(value);
+        return this;
+    }
+
+    public PromptHasher put(double value) {
+        return put(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * 结束计算
+     *
+     * @return 128位哈希值
+     */
+    public Hash finish() {
+        long high = avalanche(lane1 ^ Long.rotateLeft(lane2, 27) ^ words);
+        long low = avalanche(lane2 + lane1 * PRIME3 + words);
+        return new Hash(high, low);
+    }
+
+    private void mix(long word) {
+        lane1 = Long.rotateLeft(lane1 + word * PRIME2, 31) * PRIME1;
+        lane2 = Long.rotateLeft(lane2 ^ word * PRIME4, 29) * PRIME2 + PRIME3;
+        words++;
+    }
+
+    private static long avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    /**
+     * 128位哈希值
+     */
+    public static final class Hash {
+
+        private final long high;
+        private final long low;
+
+        public Hash(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        public long getHigh() {
+            return high;
+        }
+
+        public long getLow() {
+            return low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Hash)) {
+                return false;
+            }
+            Hash other = (Hash) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", high, low);
+        }
+    }
+}
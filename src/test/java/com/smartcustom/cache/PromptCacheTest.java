@@ -0,0 +1,85 @@
+package com.smartcustom.cache;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.model.dto.ChatRequest;
+import com.smartcustom.util.PromptHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptCacheTest {
+
+    private SmartCustomProperties properties;
+    private PromptCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SmartCustomProperties();
+        cache = new PromptCache(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testHashSeparatesSegments() {
+        assertEquals(new PromptHasher().put("ab").put("c").finish(), new PromptHasher().put("ab").put("c").finish());
+        assertNotEquals(new PromptHasher().put("ab").put("c").finish(), new PromptHasher().put("a").put("bc").finish());
+        assertNotEquals(new PromptHasher().put("").finish(), new PromptHasher().put((String) null).finish());
+        assertNotEquals(new PromptHasher().put("退款原因").finish(), new PromptHasher().put("退款原因 ").finish());
+    }
+
+    @Test
+    void testKeyCoversHistoryAndOptions() {
+        List<Message> history = List.of(new UserMessage("你好"), new AssistantMessage("您好"), new UserMessage("发票"));
+        ChatRequest request = deterministic("发票");
+
+        PromptHasher.Hash key = cache.keyFor("system", history, request);
+        assertEquals(key, cache.keyFor("system", history, deterministic("发票")));
+        assertNotEquals(key, cache.keyFor("other", history, request));
+        assertNotEquals(key, cache.keyFor("system", history.subList(2, 3), request));
+
+        ChatRequest otherModel = deterministic("发票");
+        otherModel.setModel("qwen-turbo");
+        assertNotEquals(key, cache.keyFor("system", history, otherModel));
+
+        ChatRequest otherMaxTokens = deterministic("发票");
+        otherMaxTokens.setMaxTokens(100);
+        assertNotEquals(key, cache.keyFor("system", history, otherMaxTokens));
+    }
+
+    @Test
+    void testNonDeterministicRequestsBypassUnlessConfigured() {
+        List<Message> history = List.of(new UserMessage("发票"));
+        assertNull(cache.keyFor("system", history, new ChatRequest("发票")));
+
+        properties.getChat().getPromptCache().setMaxTemperature(1.0);
+        assertNotNull(cache.keyFor("system", history, new ChatRequest("发票")));
+    }
+
+    @Test
+    void testGetPutAndExpiry() {
+        PromptHasher.Hash key = cache.keyFor("system", List.of(new UserMessage("发票")), deterministic("发票"));
+        assertNull(cache.get(key));
+
+        cache.put(key, "可以在订单详情页申请发票。");
+        assertEquals("可以在订单详情页申请发票。", cache.get(key));
+
+        cache.clear();
+        assertNull(cache.get(key));
+
+        properties.getChat().getPromptCache().setTtlSeconds(0);
+        cache.put(key, "可以在订单详情页申请发票。");
+        assertNull(cache.get(key));
+    }
+
+    private static ChatRequest deterministic(String message) {
+        ChatRequest request = new ChatRequest(message);
+        request.setTemperature(0f);
+        return request;
+    }
+}
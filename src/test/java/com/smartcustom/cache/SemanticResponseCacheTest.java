@@ -0,0 +1,83 @@
+package com.smartcustom.cache;
+
+import com.smartcustom.config.SmartCustomProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticResponseCacheTest {
+
+    private SmartCustomProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private SemanticResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SmartCustomProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SemanticResponseCache(properties, meterRegistry);
+    }
+
+    @Test
+    void testNormalization() {
+        assertEquals("退款多久到账", MinHasher.normalize("退款 多久到账呢？"));
+        assertEquals("shippingtime", MinHasher.normalize("Shipping  TIME!"));
+        assertEquals("abc123", MinHasher.normalize("ＡＢＣ１２３"));
+    }
+
+    @Test
+    void testNearDuplicateQuestionHits() {
+        cache.put("发货后几天能送到？", "一般3到5天送达。");
+
+        assertEquals("一般3到5天送达。", cache.get("发货后几天能送到"));
+        assertEquals("一般3到5天送达。", cache.get("请问发货后几天能送到呀"));
+        assertNull(cache.get("怎么申请开发票"));
+
+        assertEquals(1.0, meterRegistry.get("smartcustom.response.cache").tag("result", "miss").counter().count());
+        assertEquals(2, cache.getStats().getHits());
+    }
+
+    @Test
+    void testQuestionsWithIdentifiersAreNotCached() {
+        cache.put("订单ORD202311001什么时候发货", "明天发货。");
+
+        assertEquals(0, cache.getStats().getSize());
+        assertNull(cache.get("订单ORD202311001什么时候发货"));
+    }
+
+    @Test
+    void testQuestionsWithRefundIdsAreNotCached() {
+        cache.put("退款单REF0K3HXABCDEFGH的钱退到哪了", "已原路退回。");
+
+        assertEquals(0, cache.getStats().getSize());
+        assertNull(cache.get("退款单REF0K3HXABCDEFGH的钱退到哪了"));
+    }
+
+    @Test
+    void testExpiredEntriesAreNotServed() {
+        properties.getChat().getResponseCache().setTtlSeconds(0);
+        cache.put("发货后几天能送到", "一般3到5天送达。");
+
+        assertNull(cache.get("发货后几天能送到"));
+        cache.evictExpired();
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void testCapacityAndInvalidation() {
+        properties.getChat().getResponseCache().setMaxEntries(2);
+        cache.put("发货后几天能送到", "3到5天");
+        cache.put("怎么申请开发票", "在订单详情页申请");
+        cache.put("退款多久能到账", "1到3个工作日");
+
+        assertEquals(2, cache.getStats().getSize());
+        assertNull(cache.get("发货后几天能送到"));
+
+        assertEquals(1, cache.invalidate("退款多久能到账呢"));
+        assertNull(cache.get("退款多久能到账"));
+        assertEquals(1, cache.clear());
+        assertEquals(0, cache.getStats().getSize());
+    }
+}
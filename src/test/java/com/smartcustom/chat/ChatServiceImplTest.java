@@ -0,0 +1,454 @@
+package com.smartcustom.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcustom.cache.PromptCache;
+import com.smartcustom.cache.SemanticResponseCache;
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.intent.IntentMatcher;
+import com.smartcustom.metrics.ChatMetrics;
+import com.smartcustom.metrics.SlowTurn;
+import com.smartcustom.metrics.SlowTurnRecorder;
+import com.smartcustom.metrics.TokenUsageTracker;
+import com.smartcustom.metrics.ToolMetrics;
+import com.smartcustom.model.ChatMessage;
+import com.smartcustom.model.ChatSession;
+import com.smartcustom.model.dto.ChatRequest;
+import com.smartcustom.model.dto.ChatResponse;
+import com.smartcustom.repository.ChatSessionRepository;
+import com.smartcustom.resilience.DegradedResponder;
+import com.smartcustom.resilience.ModelCallExecutor;
+import com.smartcustom.tool.AbstractTool;
+import com.smartcustom.tool.ToolPrefetcher;
+import com.smartcustom.tool.ToolResult;
+import com.smartcustom.tool.ToolResultCache;
+import com.smartcustom.tool.refund.RefundTool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.InMemoryChatMemory;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatServiceImplTest {
+
+    private ChatServiceImpl chatService;
+    private ChatModel chatModel;
+    private org.springframework.ai.chat.model.ChatResponse modelResponse;
+    private ToolManagerImpl toolManager;
+    private SmartCustomProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenUsageTracker tokenUsageTracker;
+    private SlowTurnRecorder slowTurnRecorder;
+
+    @BeforeEach
+    void setUp() {
+        Usage usage = new Usage() {
+            @Override
+            public Long getPromptTokens() {
+                return 12L;
+            }
+
+            @Override
+            public Long getGenerationTokens() {
+                return 3L;
+            }
+        };
+        ChatResponseMetadata metadata = ChatResponseMetadata.builder()
+                .withModel("test-model")
+                .withUsage(usage)
+                .build();
+        modelResponse = new org.springframework.ai.chat.model.ChatResponse(List.of(new Generation("您好")), metadata);
+        chatModel = mock(ChatModel.class);
+        when(chatModel.call(any(Prompt.class))).thenReturn(modelResponse);
+
+        properties = new SmartCustomProperties();
+        SessionWriteBehind sessionWriter = new SessionWriteBehind(
+                mock(ChatSessionRepository.class),
+                new ObjectMapper().findAndRegisterModules(),
+                properties,
+                Runnable::run,
+                mock(PlatformTransactionManager.class));
+
+        meterRegistry = new SimpleMeterRegistry();
+        tokenUsageTracker = new TokenUsageTracker(meterRegistry);
+        toolManager = new ToolManagerImpl();
+        slowTurnRecorder = new SlowTurnRecorder(properties, Runnable::run);
+        chatService = new ChatServiceImpl(
+                ChatClient.create(chatModel),
+                new InMemoryChatMemory(),
+                properties,
+                toolManager,
+                new ConcurrentMapCacheManager("chatSessions"),
+                meterRegistry,
+                sessionWriter,
+                new ChatMetrics(meterRegistry, Tracer.NOOP, slowTurnRecorder),
+                tokenUsageTracker);
+    }
+
+    @Test
+    void testCreatedSessionCanBeFound() {
+        ChatSession session = chatService.createSession("user1", "新对话");
+
+        assertNotNull(session.getSessionId());
+        assertSame(session, chatService.getSession(session.getSessionId()));
+
+        ChatMessage welcomeMessage = session.getMessages().get(0);
+        assertEquals(session.getSessionId(), welcomeMessage.getSessionId());
+    }
+
+    @Test
+    void testChatReusesCreatedSession() {
+        ChatSession session = chatService.createSession("user1", "新对话");
+
+        ChatRequest request = new ChatRequest("你好");
+        request.setUserId("user1");
+        request.setSessionId(session.getSessionId());
+        ChatResponse response = chatService.chat(request);
+
+        assertFalse(response.isError());
+        assertEquals(session.getSessionId(), response.getSessionId());
+        assertEquals(1, chatService.getUserSessions("user1").size());
+        assertEquals(3, session.getMessages().size());
+    }
+
+    @Test
+    void testFollowUpChatUsesReturnedSessionId() {
+        ChatRequest first = new ChatRequest("你好");
+        first.setUserId("user2");
+        ChatResponse firstResponse = chatService.chat(first);
+
+        ChatRequest second = new ChatRequest("查询订单");
+        second.setUserId("user2");
+        second.setSessionId(firstResponse.getSessionId());
+        ChatResponse secondResponse = chatService.chat(second);
+
+        assertEquals(firstResponse.getSessionId(), secondResponse.getSessionId());
+        assertEquals(1, chatService.getUserSessions("user2").size());
+        assertNotNull(chatService.getSession(firstResponse.getSessionId()));
+    }
+
+    @Test
+    void testChatRecordsStageMetrics() {
+        ChatRequest request = new ChatRequest("你好");
+        request.setUserId("user3");
+        chatService.chat(request);
+
+        assertEquals(1, meterRegistry.get("smartcustom.chat.stage")
+                .tag("operation", "chat").tag("stage", "model").timer().count());
+        assertEquals(1, meterRegistry.get("smartcustom.chat.requests")
+                .tag("outcome", "success").timer().count());
+        assertEquals(1.0, meterRegistry.get("smartcustom.sessions.active").gauge().value());
+    }
+
+    @Test
+    void testTokenUsageIsCapturedAndAggregated() {
+        ChatRequest request = new ChatRequest("你好");
+        request.setUserId("user4");
+        ChatResponse first = chatService.chat(request);
+
+        request.setSessionId(first.getSessionId());
+        chatService.chat(request);
+
+        assertNotNull(first.getTokenUsage());
+        assertEquals(12, first.getTokenUsage().getPromptTokens());
+        assertEquals(15, first.getTokenUsage().getTotalTokens());
+
+        assertEquals(30, tokenUsageTracker.getUserUsage("user4").getTotalTokens());
+        assertEquals(2, tokenUsageTracker.getSessionUsage(first.getSessionId()).getRequests());
+        assertEquals("test-model", tokenUsageTracker.getModelUsage().get(0).getKey());
+        assertEquals(24.0, meterRegistry.get("smartcustom.tokens")
+                .tag("model", "test-model").tag("type", "prompt").counter().count());
+
+        chatService.deleteSession(first.getSessionId());
+        assertEquals(0, tokenUsageTracker.getSessionUsage(first.getSessionId()).getRequests());
+    }
+
+    @Test
+    void testFirstTurnFaqIsServedFromResponseCache() {
+        chatService.setResponseCache(new SemanticResponseCache(properties, meterRegistry));
+
+        ChatRequest first = new ChatRequest("退款一般需要多久到账？");
+        first.setUserId("user5");
+        ChatResponse firstResponse = chatService.chat(first);
+
+        ChatRequest second = new ChatRequest("退款一般需要多久到账呢");
+        second.setUserId("user6");
+        ChatResponse secondResponse = chatService.chat(second);
+
+        assertEquals(ChatResponse.Source.MODEL, firstResponse.getSource());
+        assertEquals(ChatResponse.Source.CACHE, secondResponse.getSource());
+        assertEquals(firstResponse.getMessage(), secondResponse.getMessage());
+        assertEquals(3, chatService.getSession(secondResponse.getSessionId()).getMessageCount());
+
+        // 已有上下文的会话不使用缓存
+        ChatRequest followUp = new ChatRequest("退款一般需要多久到账？");
+        followUp.setSessionId(firstResponse.getSessionId());
+        assertEquals(ChatResponse.Source.MODEL, chatService.chat(followUp).getSource());
+        verify(chatModel, times(2)).call(any(Prompt.class));
+    }
+
+    @Test
+    void testDeterministicPromptIsServedFromPromptCache() {
+        chatService.setPromptCache(new PromptCache(properties, meterRegistry));
+
+        ChatRequest first = new ChatRequest("查询订单ORD202311001");
+        first.setTemperature(0f);
+        ChatResponse firstResponse = chatService.chat(first);
+
+        ChatRequest second = new ChatRequest("查询订单ORD202311001");
+        second.setTemperature(0f);
+        ChatResponse secondResponse = chatService.chat(second);
+
+        ChatRequest creative = new ChatRequest("查询订单ORD202311001");
+        chatService.chat(creative);
+
+        assertEquals(ChatResponse.Source.MODEL, firstResponse.getSource());
+        assertEquals(ChatResponse.Source.CACHE, secondResponse.getSource());
+        assertNull(secondResponse.getTokenUsage());
+        verify(chatModel, times(2)).call(any(Prompt.class));
+        assertEquals(1.0, meterRegistry.get("smartcustom.prompt.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("smartcustom.prompt.cache").tag("result", "bypass").counter().count());
+    }
+
+    @Test
+    void testUnavailableModelFallsBackToTemplate() {
+        when(chatModel.call(any(Prompt.class))).thenThrow(new TransientAiException("503 Service Unavailable"));
+        properties.getResilience().setMaxAttempts(1);
+        ModelCallExecutor executor = new ModelCallExecutor(properties, meterRegistry);
+        chatService.setModelCallExecutor(executor);
+        chatService.setDegradedResponder(new DegradedResponder(properties, meterRegistry));
+
+        try {
+            ChatRequest request = new ChatRequest("我要退款");
+            request.setUserId("user7");
+            ChatResponse response = chatService.chat(request);
+
+            assertFalse(response.isError());
+            assertTrue(response.isDegraded());
+            assertEquals(ChatResponse.Source.TEMPLATE, response.getSource());
+            assertTrue(response.getMessage().contains("原路退回"));
+            assertEquals(1.0, meterRegistry.get("smartcustom.chat.degraded")
+                    .tag("source", "template").tag("reason", "unavailable").counter().count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testWriteToolRunsOnceWhenModelCallFails() {
+        CountingTool refundTool = new CountingTool("refund");
+        toolManager.registerTool(refundTool);
+        // 模型先发起退款提交，随后连接中断
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            toolManager.getFunctionCallbacks(List.of("refund")).get(0)
+                    .call("{\"action\":\"submit\",\"order_id\":\"ORD202311001\"}");
+            throw new TransientAiException("503 Service Unavailable");
+        });
+        properties.getResilience().setMaxAttempts(3);
+        properties.getResilience().setInitialBackoffMillis(1);
+        ModelCallExecutor executor = new ModelCallExecutor(properties, meterRegistry);
+        chatService.setModelCallExecutor(executor);
+
+        try {
+            ChatRequest request = new ChatRequest("帮我把订单ORD202311001退款");
+            request.setUserId("user8");
+            ChatResponse response = chatService.chatWithTools(request, List.of("refund"));
+
+            assertTrue(response.isError());
+            assertEquals(1, refundTool.executions.get());
+            verify(chatModel, times(1)).call(any(Prompt.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testUnavailableModelInToolChatFallsBackToTemplate() {
+        CountingTool refundTool = new CountingTool("refund");
+        toolManager.registerTool(refundTool);
+        when(chatModel.call(any(Prompt.class))).thenThrow(new TransientAiException("503 Service Unavailable"));
+        ModelCallExecutor executor = new ModelCallExecutor(properties, meterRegistry);
+        chatService.setModelCallExecutor(executor);
+        chatService.setDegradedResponder(new DegradedResponder(properties, meterRegistry));
+
+        try {
+            ChatRequest request = new ChatRequest("我要退款");
+            request.setUserId("user9");
+            ChatResponse response = chatService.chatWithTools(request, List.of("refund"));
+
+            assertFalse(response.isError());
+            assertTrue(response.isDegraded());
+            assertEquals(ChatResponse.Source.TEMPLATE, response.getSource());
+            assertTrue(response.getMessage().contains("原路退回"));
+            assertEquals(0, refundTool.executions.get());
+            assertEquals(1.0, meterRegistry.get("smartcustom.chat.degraded")
+                    .tag("source", "template").tag("reason", "unavailable").counter().count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testToolCallsDuringModelCallAreInSlowTurn() {
+        properties.getChat().getSlowTurn().setThresholdMillis(0);
+        CountingTool refundTool = new CountingTool("refund");
+        refundTool.setToolMetrics(new ToolMetrics(meterRegistry));
+        toolManager.registerTool(refundTool);
+        // 模型调用在执行器的虚拟线程中发起函数调用
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            toolManager.getFunctionCallbacks(List.of("refund")).get(0).call("{\"action\":\"query\"}");
+            return modelResponse;
+        });
+        ModelCallExecutor executor = new ModelCallExecutor(properties, meterRegistry);
+        chatService.setModelCallExecutor(executor);
+
+        try {
+            ChatRequest request = new ChatRequest("帮我查下退款进度");
+            request.setUserId("user10");
+            assertFalse(chatService.chatWithTools(request, List.of("refund")).isError());
+
+            SlowTurn turn = slowTurnRecorder.getRecent().get(0);
+            assertEquals("chatWithTools", turn.getOperation());
+            assertEquals(1, turn.getToolCalls().size());
+            assertEquals("refund", turn.getToolCalls().get(0).getTool());
+            assertEquals("query", turn.getToolCalls().get(0).getOperation());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testMatchedIntentIsAnsweredWithoutModel() {
+        toolManager.registerTool(new RefundTool());
+        chatService.setIntentMatcher(new IntentMatcher(properties, meterRegistry));
+
+        ChatRequest request = new ChatRequest("退款原因有哪些");
+        request.setUserId("user11");
+        ChatResponse response = chatService.chatWithTools(request, List.of("refund"));
+
+        assertFalse(response.isError());
+        assertEquals(ChatResponse.Source.RULE, response.getSource());
+        assertEquals(3, chatService.getSession(response.getSessionId()).getMessageCount());
+        verify(chatModel, never()).call(any(Prompt.class));
+    }
+
+    @Test
+    void testModelFunctionCallUsesPrefetchedResult() {
+        CountingOrderTool orderTool = new CountingOrderTool(0);
+        AtomicReference<String> toolOutput = givenOrderToolCalledByModel(orderTool);
+
+        ChatRequest request = new ChatRequest("我的订单ORD202311001到哪了");
+        request.setUserId("user12");
+        ChatResponse response = chatService.chatWithTools(request, List.of("order-query"));
+
+        assertEquals(ChatResponse.Source.MODEL, response.getSource());
+        assertTrue(toolOutput.get().contains("已发货"));
+        assertEquals(1, orderTool.executions.get());
+        assertEquals(1.0, meterRegistry.get("smartcustom.tool.cache").tag("result", "prefetch").counter().count());
+        assertEquals(1.0, meterRegistry.get("smartcustom.tool.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testFailedPrefetchFallsThroughToToolExecution() {
+        CountingOrderTool orderTool = new CountingOrderTool(1);
+        AtomicReference<String> toolOutput = givenOrderToolCalledByModel(orderTool);
+
+        ChatRequest request = new ChatRequest("我的订单ORD202311001到哪了");
+        request.setUserId("user13");
+        ChatResponse response = chatService.chatWithTools(request, List.of("order-query"));
+
+        assertEquals(ChatResponse.Source.MODEL, response.getSource());
+        assertTrue(toolOutput.get().contains("已发货"));
+        assertEquals(2, orderTool.executions.get());
+    }
+
+    /**
+     * 注册订单查询工具并开启预取，模型被调用时查询订单ORD202311001
+     *
+     * @return 模型取得的工具输出
+     */
+    private AtomicReference<String> givenOrderToolCalledByModel(CountingOrderTool orderTool) {
+        toolManager.setResultCache(new ToolResultCache(properties, meterRegistry, Runnable::run));
+        toolManager.registerTool(orderTool);
+        chatService.setToolPrefetcher(new ToolPrefetcher(toolManager, properties));
+
+        AtomicReference<String> toolOutput = new AtomicReference<>();
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            toolOutput.set(toolManager.getFunctionCallbacks(List.of("order-query")).get(0)
+                    .call("{\"order_id\":\"ORD202311001\"}"));
+            return modelResponse;
+        });
+        return toolOutput;
+    }
+
+    /**
+     * 记录执行次数的写操作工具
+     */
+    private static class CountingTool extends AbstractTool {
+
+        private final AtomicInteger executions = new AtomicInteger();
+
+        CountingTool(String name) {
+            super(name, "测试工具");
+        }
+
+        @Override
+        protected ToolResult doExecute(Map<String, Object> parameters) {
+            executions.incrementAndGet();
+            return ToolResult.success("执行成功", Map.of());
+        }
+    }
+
+    /**
+     * 可缓存的只读订单查询工具，前几次执行可以设定为失败
+     */
+    private static class CountingOrderTool extends AbstractTool {
+
+        private final AtomicInteger executions = new AtomicInteger();
+        private final int failures;
+
+        CountingOrderTool(int failures) {
+            super("order-query", "订单查询");
+            this.failures = failures;
+        }
+
+        @Override
+        public boolean isCacheable(Map<String, Object> parameters) {
+            return true;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        protected ToolResult doExecute(Map<String, Object> parameters) {
+            if (executions.incrementAndGet() <= failures) {
+                return ToolResult.error("订单服务暂时不可用");
+            }
+            return ToolResult.success("查询成功", Map.of("status_description", "已发货"));
+        }
+    }
+}
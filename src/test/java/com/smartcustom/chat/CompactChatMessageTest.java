@@ -0,0 +1,70 @@
+package com.smartcustom.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactChatMessageTest {
+
+    @Test
+    void testRoundTrip() {
+        ChatMessage message = new ChatMessage("session-1", ChatMessage.MessageType.ASSISTANT, "您好");
+        message.setTokenUsage(new ChatMessage.TokenUsage(10, 20, 30));
+        message.markAsRead();
+
+        ChatMessage restored = CompactChatMessage.from(message).toChatMessage("session-1");
+
+        assertEquals(message.getMessageId(), restored.getMessageId());
+        assertEquals("session-1", restored.getSessionId());
+        assertEquals(ChatMessage.MessageType.ASSISTANT, restored.getType());
+        assertEquals("您好", restored.getContent());
+        assertEquals(message.getTimestamp().withNano(0), restored.getTimestamp().withNano(0));
+        assertTrue(restored.isRead());
+        assertEquals(30, restored.getTokenUsage().getTotalTokens());
+    }
+
+    @Test
+    void testExternalMessageIdIsKept() {
+        ChatMessage message = new ChatMessage("session-1", ChatMessage.MessageType.USER, "你好");
+        message.setMessageId("legacy-message-id");
+
+        CompactChatMessage compact = CompactChatMessage.from(message);
+
+        assertEquals("legacy-message-id", compact.getMessageId());
+        assertNull(compact.toChatMessage("session-1").getTokenUsage());
+    }
+
+    @Test
+    void testCompressLongContent() {
+        String content = "您的订单已发货，预计三天内送达。".repeat(50);
+        CompactChatMessage compact = CompactChatMessage.from(
+                new ChatMessage("session-1", ChatMessage.MessageType.ASSISTANT, content));
+
+        compact.compress();
+
+        assertTrue(compact.isCompressed());
+        assertEquals(content, compact.getContent());
+    }
+
+    @Test
+    void testShortContentIsNotCompressed() {
+        CompactChatMessage compact = CompactChatMessage.from(
+                new ChatMessage("session-1", ChatMessage.MessageType.USER, "你好"));
+
+        compact.compress();
+
+        assertFalse(compact.isCompressed());
+    }
+
+    @Test
+    void testSessionViewUsesSessionId() {
+        ChatSession session = new ChatSession("user1", "新对话");
+        for (int i = 0; i < 30; i++) {
+            session.addMessage(new ChatMessage(session.getSessionId(), ChatMessage.MessageType.USER, "消息" + i));
+        }
+
+        assertEquals(30, session.getMessages().size());
+        assertEquals(session.getSessionId(), session.getMessages().get(0).getSessionId());
+        assertEquals("消息29", session.getMessages().get(29).getContent());
+    }
+}
@@ -0,0 +1,99 @@
+package com.smartcustom.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageLogTest {
+
+    @Test
+    void testSnapshotIsStableWhileAppending() {
+        MessageLog log = new MessageLog();
+        for (int i = 0; i < 20; i++) {
+            log.append(message("消息" + i));
+        }
+
+        List<CompactChatMessage> snapshot = log.snapshot();
+        for (int i = 20; i < 50; i++) {
+            log.append(message("消息" + i));
+        }
+
+        assertEquals(20, snapshot.size());
+        assertEquals("消息19", snapshot.get(19).getContent());
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.get(20));
+        assertEquals(50, log.size());
+        assertEquals("消息49", log.get(49).getContent());
+    }
+
+    @Test
+    void testConcurrentAppendsAndReads() throws Exception {
+        MessageLog log = new MessageLog();
+        int writers = 4;
+        int perWriter = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                String prefix = "w" + w + "-";
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        log.append(message(prefix + i));
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                while (log.size() < writers * perWriter) {
+                    for (CompactChatMessage message : log.snapshot()) {
+                        assertNotNull(message);
+                    }
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            reader.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<String> contents = new HashSet<>();
+        for (CompactChatMessage message : log.snapshot()) {
+            contents.add(message.getContent());
+        }
+        assertEquals(writers * perWriter, contents.size());
+    }
+
+    @Test
+    void testSessionMessagesAreSnapshots() {
+        ChatSession session = new ChatSession("user1", "新对话");
+        session.addMessage(new ChatMessage(session.getSessionId(), ChatMessage.MessageType.USER, "你好"));
+
+        List<ChatMessage> messages = session.getMessages();
+        session.addMessage(new ChatMessage(session.getSessionId(), ChatMessage.MessageType.ASSISTANT, "您好"));
+
+        assertEquals(1, messages.size());
+        assertEquals(2, session.getMessages().size());
+        assertEquals(2, session.getMessageCount());
+    }
+
+    private static CompactChatMessage message(String content) {
+        return CompactChatMessage.from(new ChatMessage("session-1", ChatMessage.MessageType.USER, content));
+    }
+}
@@ -0,0 +1,52 @@
+package com.smartcustom.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionExpiryIndexTest {
+
+    private SessionExpiryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SessionExpiryIndex(1000);
+    }
+
+    @Test
+    void testPollExpired() {
+        index.touch("s1", 1000);
+        index.touch("s2", 5000);
+
+        List<String> expired = index.pollExpired(3000);
+
+        assertEquals(List.of("s1"), expired);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testTouchMovesSession() {
+        index.touch("s1", 1000);
+        index.touch("s1", 5000);
+
+        assertTrue(index.pollExpired(3000).isEmpty());
+        assertEquals(List.of("s1"), index.pollExpired(7000));
+    }
+
+    @Test
+    void testRemove() {
+        index.touch("s1", 1000);
+        index.remove("s1");
+
+        assertTrue(index.pollExpired(3000).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testInvalidTick() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionExpiryIndex(0));
+    }
+}
@@ -0,0 +1,138 @@
+package com.smartcustom.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTurnGateTest {
+
+    private SessionTurnGate gate;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        gate = new SessionTurnGate();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testDuplicateMessageIsCoalesced() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        Future<String> first = executor.submit(() -> gate.run("s1", "查询订单", () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "回复";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> duplicate = executor.submit(() -> gate.run("s1", "查询订单", () -> {
+            executions.incrementAndGet();
+            return "重复回复";
+        }));
+
+        // 重复请求在合并前不应先于第一个请求返回
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        assertEquals("回复", first.get(5, TimeUnit.SECONDS));
+        assertEquals("回复", duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(1, gate.getCoalescedCount());
+        assertEquals(0, gate.size());
+    }
+
+    @Test
+    void testCoalescedTurnSeesLeaderFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StackOverflowError failure = new StackOverflowError();
+
+        Future<String> first = executor.submit(() -> gate.run("s1", "查询订单", () -> {
+            started.countDown();
+            await(release);
+            throw failure;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> duplicate = executor.submit(() -> gate.run("s1", "查询订单", () -> "重复回复"));
+
+        Thread.sleep(50);
+        release.countDown();
+
+        ExecutionException leader = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException waiter = assertThrows(ExecutionException.class, () -> duplicate.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leader.getCause());
+        assertSame(failure, waiter.getCause());
+        assertEquals(1, gate.getCoalescedCount());
+        assertEquals(0, gate.size());
+    }
+
+    @Test
+    void testTurnsOnOneSessionDoNotOverlap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Future<?>[] turns = new Future<?>[8];
+        for (int i = 0; i < turns.length; i++) {
+            String message = "消息" + i;
+            turns[i] = executor.submit(() -> gate.run("s1", message, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(5);
+                running.decrementAndGet();
+                return message;
+            }));
+        }
+        for (Future<?> turn : turns) {
+            turn.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(0, gate.getCoalescedCount());
+        assertEquals(0, gate.size());
+    }
+
+    @Test
+    void testRepeatedMessageAfterCompletionRunsAgain() {
+        AtomicInteger executions = new AtomicInteger();
+
+        gate.run("s1", "你好", executions::incrementAndGet);
+        gate.run("s1", "你好", executions::incrementAndGet);
+        gate.run(null, "你好", executions::incrementAndGet);
+
+        assertEquals(3, executions.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.smartcustom.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.model.ChatMessage;
+import com.smartcustom.model.ChatSession;
+import com.smartcustom.model.ChatSessionEntity;
+import com.smartcustom.repository.ChatSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class SessionWriteBehindTest {
+
+    private ChatSessionRepository repository;
+    private SessionWriteBehind sessionWriter;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChatSessionRepository.class);
+        sessionWriter = new SessionWriteBehind(
+                repository,
+                new ObjectMapper().findAndRegisterModules(),
+                new SmartCustomProperties(),
+                Runnable::run,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMutationsAreCoalesced() {
+        ChatSession session = new ChatSession("user1", "新对话");
+        sessionWriter.markDirty(session);
+        session.addMessage(new ChatMessage(session.getSessionId(), ChatMessage.MessageType.USER, "你好"));
+        sessionWriter.markDirty(session);
+
+        sessionWriter.flush();
+
+        ArgumentCaptor<List<ChatSessionEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(1)).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(session.getSessionId(), captor.getValue().get(0).getSessionId());
+        assertEquals(0, sessionWriter.getPendingCount());
+    }
+
+    @Test
+    void testFailedBatchIsRetried() {
+        when(repository.saveAll(anyList())).thenThrow(new RuntimeException("db down"));
+        sessionWriter.markDirty(new ChatSession("user1", "新对话"));
+
+        sessionWriter.flush();
+
+        assertEquals(1, sessionWriter.getPendingCount());
+    }
+
+    @Test
+    void testDeleteOverridesPendingWrite() {
+        ChatSession session = new ChatSession("user1", "新对话");
+        sessionWriter.markDirty(session);
+        sessionWriter.markDeleted(session.getSessionId());
+
+        assertNull(sessionWriter.load(session.getSessionId()));
+
+        sessionWriter.drain();
+
+        verify(repository, never()).saveAll(anyList());
+        verify(repository).deleteAllByIdInBatch(List.of(session.getSessionId()));
+    }
+
+    @Test
+    void testLoadFromRepository() throws Exception {
+        ChatSession session = new ChatSession("user1", "新对话");
+        session.addMessage(new ChatMessage(session.getSessionId(), ChatMessage.MessageType.USER, "你好"));
+
+        ChatSessionEntity entity = new ChatSessionEntity();
+        entity.setSessionId(session.getSessionId());
+        entity.setPayload(new ObjectMapper().findAndRegisterModules().writeValueAsString(session));
+        when(repository.findById(session.getSessionId())).thenReturn(Optional.of(entity));
+
+        ChatSession loaded = sessionWriter.load(session.getSessionId());
+
+        assertNotNull(loaded);
+        assertEquals(session.getSessionId(), loaded.getSessionId());
+        assertEquals("你好", loaded.getMessages().get(0).getContent());
+    }
+}
@@ -0,0 +1,86 @@
+package com.smartcustom.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncConfigTest {
+
+    private SmartCustomProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor executor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        properties = new SmartCustomProperties();
+        properties.getAsync().setCorePoolSize(1);
+        properties.getAsync().setMaxPoolSize(1);
+        properties.getAsync().setQueueCapacity(1);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectPolicyCountsRejectedTasks() {
+        executor = (ThreadPoolTaskExecutor) new AsyncConfig().taskExecutor(properties, meterRegistry);
+        executor.execute(this::awaitRelease);
+        executor.execute(this::awaitRelease);
+
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+        assertEquals(1.0, meterRegistry.get("smartcustom.executor.rejected").tag("policy", "reject").counter().count());
+        assertEquals(1.0, meterRegistry.get("executor.queued").tag("name", "taskExecutor").gauge().value());
+    }
+
+    @Test
+    void testCallerRunsPolicyRunsOnSubmittingThread() {
+        properties.getAsync().setOverloadPolicy(SmartCustomProperties.Async.OverloadPolicy.CALLER_RUNS);
+        executor = (ThreadPoolTaskExecutor) new AsyncConfig().taskExecutor(properties, meterRegistry);
+        executor.execute(this::awaitRelease);
+        executor.execute(this::awaitRelease);
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(1.0, meterRegistry.get("smartcustom.executor.rejected").tag("policy", "caller_runs").counter().count());
+    }
+
+    @Test
+    void testBackgroundExecutorRejectsEvenWithCallerRunsPolicy() {
+        properties.getAsync().setOverloadPolicy(SmartCustomProperties.Async.OverloadPolicy.CALLER_RUNS);
+        properties.getAsync().setBackgroundPoolSize(1);
+        properties.getAsync().setBackgroundQueueCapacity(1);
+        executor = (ThreadPoolTaskExecutor) new AsyncConfig().backgroundExecutor(properties, meterRegistry);
+        executor.execute(this::awaitRelease);
+        executor.execute(this::awaitRelease);
+
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+        assertEquals(1.0, meterRegistry.get("smartcustom.executor.rejected")
+                .tag("name", "backgroundExecutor").tag("policy", "reject").counter().count());
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.smartcustom.intent;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.tool.ToolResult;
+import com.smartcustom.tool.order.OrderQueryTool;
+import com.smartcustom.tool.refund.RefundTool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntentMatcherTest {
+
+    private static final List<String> TOOLS = List.of("order-query", "refund");
+
+    private IntentMatcher matcher;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        matcher = new IntentMatcher(new SmartCustomProperties(), meterRegistry);
+    }
+
+    @Test
+    void testKeywordAutomatonFindsAllKeywords() {
+        KeywordAutomaton automaton = new KeywordAutomaton(List.of("订单", "退款", "退款原因", "ORD"));
+
+        assertEquals("{1, 2}", automaton.match("我想知道退款原因").toString());
+        assertEquals("{0, 3}", automaton.match("订单ord123到哪了").toString());
+        assertTrue(automaton.match("你好").isEmpty());
+    }
+
+    @Test
+    void testOrderQueryIsAnsweredFromTemplate() {
+        IntentMatcher.Match match = matcher.match("我的订单ord202311001到哪了？", TOOLS);
+
+        assertNotNull(match);
+        assertEquals("order-status", match.getRuleName());
+        assertEquals("order-query", match.getToolName());
+        assertEquals("ORD202311001", match.getParameters().get("order_id"));
+
+        ToolResult result = new OrderQueryTool().execute(match.getParameters());
+        @SuppressWarnings("unchecked")
+        Object description = ((Map<String, Object>) result.getData()).get("status_description");
+        assertEquals(description, match.render(result));
+        assertEquals(1.0, meterRegistry.get("smartcustom.intent.matches").tag("rule", "order-status").counter().count());
+    }
+
+    @Test
+    void testRefundReasonsRenderList() {
+        IntentMatcher.Match match = matcher.match("退款原因有哪些", TOOLS);
+
+        assertNotNull(match);
+        assertEquals("get_reasons", match.getParameters().get("action"));
+        String reply = match.render(new RefundTool().execute(match.getParameters()));
+        assertTrue(reply.startsWith("可选的退款原因有："));
+        assertTrue(reply.contains("、"));
+    }
+
+    @Test
+    void testUnmatchedMessagesFallBackToModel() {
+        // 缺少订单号
+        assertNull(matcher.match("我的订单到哪了", TOOLS));
+        // 命中排除词
+        assertNull(matcher.match("订单ORD202311001想申请退款", TOOLS));
+        // 工具未启用
+        assertNull(matcher.match("订单ORD202311001到哪了", List.of("refund")));
+        // 超过长度上限
+        assertNull(matcher.match("订单ORD202311001" + "很".repeat(60), TOOLS));
+    }
+
+    @Test
+    void testFailedToolReturnsError() {
+        IntentMatcher.Match match = matcher.match("订单ORD999999999到哪了", TOOLS);
+
+        assertNotNull(match);
+        ToolResult result = new OrderQueryTool().execute(match.getParameters());
+        assertFalse(result.isSuccess());
+        assertEquals(result.getError(), match.render(result));
+    }
+}
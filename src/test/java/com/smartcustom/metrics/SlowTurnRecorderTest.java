@@ -0,0 +1,68 @@
+package com.smartcustom.metrics;
+
+import com.smartcustom.config.SmartCustomProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowTurnRecorderTest {
+
+    private SlowTurnRecorder slowTurnRecorder;
+    private ChatMetrics chatMetrics;
+
+    @BeforeEach
+    void setUp() {
+        SmartCustomProperties properties = new SmartCustomProperties();
+        properties.getChat().getSlowTurn().setThresholdMillis(0);
+        properties.getChat().getSlowTurn().setCapacity(2);
+
+        slowTurnRecorder = new SlowTurnRecorder(properties, Runnable::run);
+        chatMetrics = new ChatMetrics(new SimpleMeterRegistry(), Tracer.NOOP, slowTurnRecorder);
+    }
+
+    @Test
+    void testSlowTurnTimelineIsCaptured() {
+        ChatMetrics.Stopwatch stopwatch = chatMetrics.start("chat");
+        stopwatch.describe("session1", 12, 3);
+        stopwatch.lap(ChatMetrics.STAGE_SESSION);
+        ChatMetrics.recordToolCall("calculator", "add", 2_000_000, true);
+        stopwatch.lap(ChatMetrics.STAGE_MODEL);
+        stopwatch.stop(true);
+
+        // 对话结束后的工具调用不再计入
+        ChatMetrics.recordToolCall("calculator", "add", 1_000_000, true);
+
+        List<SlowTurn> turns = slowTurnRecorder.getRecent();
+        assertEquals(1, turns.size());
+        SlowTurn turn = turns.get(0);
+        assertEquals("chat", turn.getOperation());
+        assertEquals("session1", turn.getSessionId());
+        assertEquals(12, turn.getPromptChars());
+        assertEquals(3, turn.getHistorySize());
+        assertEquals(List.of("session", "model"), List.copyOf(turn.getStageMillis().keySet()));
+        assertEquals(1, turn.getToolCalls().size());
+        assertEquals(2.0, turn.getToolCalls().get(0).getDurationMillis(), 0.001);
+    }
+
+    @Test
+    void testRingBufferKeepsMostRecentTurns() {
+        for (String sessionId : List.of("s1", "s2", "s3")) {
+            ChatMetrics.Stopwatch stopwatch = chatMetrics.start("chat");
+            stopwatch.describe(sessionId, 1, 1);
+            stopwatch.stop(true);
+        }
+
+        List<SlowTurn> turns = slowTurnRecorder.getRecent();
+        assertEquals(2, turns.size());
+        assertEquals("s3", turns.get(0).getSessionId());
+        assertEquals("s2", turns.get(1).getSessionId());
+
+        slowTurnRecorder.clear();
+        assertTrue(slowTurnRecorder.getRecent().isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+package com.smartcustom.metrics;
+
+import com.smartcustom.tool.calculator.CalculatorTool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ToolMetrics toolMetrics;
+    private CalculatorTool calculatorTool;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        toolMetrics = new ToolMetrics(meterRegistry);
+        calculatorTool = new CalculatorTool();
+        calculatorTool.setToolMetrics(toolMetrics);
+    }
+
+    @Test
+    void testExecutionIsTaggedByOperationAndOutcome() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("operation", "add");
+        params.put("operand1", new BigDecimal("1"));
+        params.put("operand2", new BigDecimal("2"));
+        calculatorTool.execute(params);
+
+        Map<String, Object> invalid = new HashMap<>();
+        invalid.put("operation", "divide");
+        invalid.put("operand1", new BigDecimal("1"));
+        invalid.put("operand2", BigDecimal.ZERO);
+        calculatorTool.execute(invalid);
+
+        assertEquals(1, meterRegistry.get("smartcustom.tool.executions")
+                .tag("tool", "calculator").tag("operation", "add").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("smartcustom.tool.executions")
+                .tag("operation", "divide").tag("outcome", "failure").timer().count());
+        assertEquals(1.0, meterRegistry.get("smartcustom.tool.errors").tag("tool", "calculator").counter().count());
+        assertEquals(0.0, meterRegistry.get("smartcustom.tool.inflight").tag("tool", "calculator").gauge().value());
+
+        List<ToolMetrics.ToolStats> stats = toolMetrics.getStats();
+        assertEquals(1, stats.size());
+        assertEquals(2, stats.get(0).getCount());
+        assertEquals(1, stats.get(0).getFailures());
+    }
+
+    @Test
+    void testOperationTagsAreBounded() {
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("operation", "op" + i);
+            calculatorTool.execute(params);
+        }
+
+        assertTrue(meterRegistry.get("smartcustom.tool.executions").timers().size() <= 33);
+        assertFalse(meterRegistry.get("smartcustom.tool.executions").tag("operation", "other").timers().isEmpty());
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.0, histogram.getPercentileMillis(0.50), 50 * 0.125);
+        assertEquals(95.0, histogram.getPercentileMillis(0.95), 95 * 0.125);
+        assertEquals(100.0, histogram.getPercentileMillis(1.0), 0.001);
+        assertEquals(100.0, histogram.getMaxMillis(), 0.001);
+    }
+}
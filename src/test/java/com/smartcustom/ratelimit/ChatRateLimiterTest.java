@@ -0,0 +1,107 @@
+package com.smartcustom.ratelimit;
+
+import com.smartcustom.config.SmartCustomProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testTokenBucketAllowsBurstThenRefills() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2.0, 3, 100);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("user-1", now));
+        }
+        long wait = limiter.tryAcquire("user-1", now);
+        assertEquals(SECOND / 2, wait);
+
+        // 其他用户不受影响
+        assertEquals(0, limiter.tryAcquire("user-2", now));
+
+        assertEquals(0, limiter.tryAcquire("user-1", now + wait));
+        assertTrue(limiter.tryAcquire("user-1", now + wait) > 0);
+    }
+
+    @Test
+    void testFullBucketsAreEvicted() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1.0, 2, 100);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("idle", now);
+        limiter.tryAcquire("busy", now);
+        limiter.tryAcquire("busy", now);
+
+        assertEquals(0, limiter.evictFull(now));
+        assertEquals(1, limiter.evictFull(now + SECOND));
+        assertEquals(1, limiter.size());
+        assertEquals(1, limiter.evictFull(now + 2 * SECOND));
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void testNewKeysShareOverflowBucketAtCapacity() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1.0, 1, 2);
+        long now = 1_000 * SECOND;
+        limiter.tryAcquire("a", now);
+        limiter.tryAcquire("b", now);
+
+        assertEquals(0, limiter.tryAcquire("c", now));
+        assertTrue(limiter.tryAcquire("d", now) > 0);
+        assertEquals(3, limiter.size());
+    }
+
+    @Test
+    void testUserLimitIsRejectedWithRetryAfter() {
+        SmartCustomProperties properties = new SmartCustomProperties();
+        properties.getRateLimit().setRequestsPerSecond(0.1);
+        properties.getRateLimit().setBurst(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChatRateLimiter rateLimiter = new ChatRateLimiter(properties, meterRegistry);
+
+        rateLimiter.acquire("user-1").close();
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> rateLimiter.acquire("user-1"));
+
+        assertTrue(e.getRetryAfterSeconds() >= 9 && e.getRetryAfterSeconds() <= 10);
+        assertEquals(1.0, meterRegistry.get("smartcustom.ratelimit.rejected").tag("reason", "user").counter().count());
+    }
+
+    @Test
+    void testConcurrencyLimitReleasesPermits() {
+        SmartCustomProperties properties = new SmartCustomProperties();
+        properties.getRateLimit().setMaxConcurrent(1);
+        properties.getRateLimit().setMaxQueue(0);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChatRateLimiter rateLimiter = new ChatRateLimiter(properties, meterRegistry);
+
+        ChatRateLimiter.Permit permit = rateLimiter.acquire("user-1");
+        assertEquals(1, rateLimiter.getInFlight());
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("user-2"));
+
+        permit.close();
+        permit.close();
+        assertEquals(0, rateLimiter.getInFlight());
+        rateLimiter.acquire("user-2").close();
+        assertEquals(1.0, meterRegistry.get("smartcustom.ratelimit.rejected")
+                .tag("reason", "concurrency").counter().count());
+    }
+
+    @Test
+    void testDisabledLimiterAdmitsEverything() {
+        SmartCustomProperties properties = new SmartCustomProperties();
+        properties.getRateLimit().setEnabled(false);
+        properties.getRateLimit().setMaxConcurrent(0);
+        ChatRateLimiter rateLimiter = new ChatRateLimiter(properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.acquire("user-1");
+        }
+    }
+}
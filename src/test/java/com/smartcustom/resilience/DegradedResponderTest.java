@@ -0,0 +1,62 @@
+package com.smartcustom.resilience;
+
+import com.smartcustom.cache.SemanticResponseCache;
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.model.dto.ChatResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DegradedResponderTest {
+
+    private SmartCustomProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private SemanticResponseCache responseCache;
+    private DegradedResponder responder;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SmartCustomProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        responseCache = new SemanticResponseCache(properties, meterRegistry);
+        responder = new DegradedResponder(properties, meterRegistry);
+        responder.setResponseCache(responseCache);
+    }
+
+    @Test
+    void testCachedAnswerIsUsedOnlyWhenCacheable() {
+        responseCache.put("退款一般需要多久到账？", "一般1-3个工作日到账");
+
+        DegradedResponder.Reply cached = responder.reply("退款一般需要多久到账？", true,
+                ModelCallException.Reason.CIRCUIT_OPEN);
+        assertEquals(ChatResponse.Source.CACHE, cached.getSource());
+        assertEquals("一般1-3个工作日到账", cached.getContent());
+
+        // 已有上下文的会话不使用缓存，改用模板
+        DegradedResponder.Reply template = responder.reply("退款一般需要多久到账？", false,
+                ModelCallException.Reason.CIRCUIT_OPEN);
+        assertEquals(ChatResponse.Source.TEMPLATE, template.getSource());
+        assertTrue(template.getContent().contains("原路退回"));
+
+        assertEquals(1.0, meterRegistry.get("smartcustom.chat.degraded")
+                .tag("source", "cache").tag("reason", "circuit_open").counter().count());
+    }
+
+    @Test
+    void testUnmatchedMessageGetsDefaultAnswer() {
+        DegradedResponder.Reply reply = responder.reply("你好", true, ModelCallException.Reason.DEADLINE_EXCEEDED);
+
+        assertEquals(ChatResponse.Source.TEMPLATE, reply.getSource());
+        assertEquals(properties.getResilience().getDegradation().getDefaultAnswer(), reply.getContent());
+    }
+
+    @Test
+    void testFailedRequestIsNotDegraded() {
+        assertFalse(responder.shouldDegrade(new ModelCallException(ModelCallException.Reason.FAILED, "gpt-test",
+                "模型调用失败", null)));
+        assertTrue(responder.shouldDegrade(new ModelCallException(ModelCallException.Reason.UNAVAILABLE, "gpt-test",
+                "模型服务暂时不可用", null)));
+    }
+}
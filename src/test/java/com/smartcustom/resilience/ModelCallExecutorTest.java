@@ -0,0 +1,148 @@
+package com.smartcustom.resilience;
+
+import com.smartcustom.config.SmartCustomProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelCallExecutorTest {
+
+    private SmartCustomProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ModelCallExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SmartCustomProperties();
+        properties.getResilience().setInitialBackoffMillis(1);
+        properties.getResilience().setMaxBackoffMillis(5);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new ModelCallExecutor(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testTransientFailuresAreRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute("gpt-test", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new TransientAiException("503 Service Unavailable");
+            }
+            return "您好";
+        });
+
+        assertEquals("您好", result);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.get("smartcustom.model.retries").tag("endpoint", "gpt-test").counter().count());
+    }
+
+    @Test
+    void testNonTransientFailureIsNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        ModelCallException e = assertThrows(ModelCallException.class, () -> executor.execute("gpt-test", () -> {
+            calls.incrementAndGet();
+            throw new NonTransientAiException("400 Bad Request");
+        }));
+
+        assertEquals(ModelCallException.Reason.FAILED, e.getReason());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testExecuteOnceDoesNotRetryTransientFailure() {
+        AtomicInteger calls = new AtomicInteger();
+
+        ModelCallException e = assertThrows(ModelCallException.class, () -> executor.executeOnce("gpt-test", 1000, () -> {
+            calls.incrementAndGet();
+            throw new TransientAiException("503 Service Unavailable");
+        }));
+
+        assertEquals(ModelCallException.Reason.UNAVAILABLE, e.getReason());
+        assertEquals(1, calls.get());
+        assertEquals(0.0, meterRegistry.get("smartcustom.model.retries").tag("endpoint", "gpt-test").counter().count());
+    }
+
+    @Test
+    void testSlowAttemptTimesOutWithinDeadline() {
+        properties.getResilience().setAttemptTimeoutMillis(50);
+
+        ModelCallException e = assertThrows(ModelCallException.class, () -> executor.execute("gpt-test", 120, () -> {
+            Thread.sleep(10_000);
+            return "太慢了";
+        }));
+
+        assertEquals(ModelCallException.Reason.DEADLINE_EXCEEDED, e.getReason());
+    }
+
+    @Test
+    void testCircuitOpensPerEndpoint() {
+        properties.getResilience().setMaxAttempts(1);
+        properties.getResilience().getCircuitBreaker().setMinimumCalls(2);
+        executor.shutdown();
+        executor = new ModelCallExecutor(properties, meterRegistry);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ModelCallException.class, () -> executor.execute("gpt-slow", () -> {
+                throw new TransientAiException("502 Bad Gateway");
+            }));
+        }
+
+        ModelCallException e = assertThrows(ModelCallException.class, () -> executor.execute("gpt-slow", () -> "您好"));
+        assertEquals(ModelCallException.Reason.CIRCUIT_OPEN, e.getReason());
+        assertEquals(CircuitBreaker.State.OPEN, executor.getState("gpt-slow"));
+        assertEquals("您好", executor.execute("gpt-fast", () -> "您好"));
+    }
+
+    @Test
+    void testSlowCallIsHedged() {
+        SmartCustomProperties.Resilience.Hedge hedge = properties.getResilience().getHedge();
+        hedge.setEnabled(true);
+        hedge.setMinSamples(1);
+        hedge.setMinDelayMillis(20);
+        executor.execute("gpt-test", () -> "预热");
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = executor.execute("gpt-test", () -> {
+            if (calls.incrementAndGet() == 1) {
+                Thread.sleep(10_000);
+                return "慢";
+            }
+            return "快";
+        });
+
+        assertEquals("快", result);
+        assertEquals(1.0, meterRegistry.get("smartcustom.model.hedges").tag("endpoint", "gpt-test").counter().count());
+    }
+
+    @Test
+    void testHalfOpenProbesCloseTheCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 4, 2, 1000, 2);
+        long now = 0L;
+
+        breaker.onFailure(now);
+        breaker.onFailure(now);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission(now + 999_000_000L));
+
+        long later = now + 1_000_000_000L;
+        assertTrue(breaker.tryAcquirePermission(later));
+        assertTrue(breaker.tryAcquirePermission(later));
+        assertFalse(breaker.tryAcquirePermission(later));
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
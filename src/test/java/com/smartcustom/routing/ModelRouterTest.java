@@ -0,0 +1,124 @@
+package com.smartcustom.routing;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.model.dto.ChatRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ModelRouterTest {
+
+    private SmartCustomProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ObjectProvider<ChatClient.Builder> chatClientBuilders;
+    private ModelRouter router;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        properties = new SmartCustomProperties();
+        properties.getRouting().setDefaultModel("big-model");
+        properties.getRouting().setAllowedModels(new String[]{"qwen-plus"});
+        properties.getRouting().setFastModel("small-model");
+        meterRegistry = new SimpleMeterRegistry();
+        ChatModel chatModel = mock(ChatModel.class);
+        chatClientBuilders = mock(ObjectProvider.class);
+        when(chatClientBuilders.getObject()).thenAnswer(invocation -> ChatClient.builder(chatModel));
+        router = new ModelRouter(chatClientBuilders, properties, meterRegistry);
+    }
+
+    @Test
+    void testRequestedModelAndOptionsAreHonored() {
+        ChatRequest request = new ChatRequest("我想修改收货地址");
+        request.setModel("qwen-plus");
+        request.setTemperature(0.33f);
+        request.setMaxTokens(800);
+
+        ModelRoute route = router.route(request);
+        assertEquals("qwen-plus", route.getModel());
+        assertEquals(ModelRoute.Reason.REQUESTED, route.getReason());
+        assertEquals(0.3, route.getTemperature(), 1e-9);
+        assertEquals(1024, route.getMaxTokens());
+        assertNotNull(route.getChatClient());
+    }
+
+    @Test
+    void testUnknownModelFallsBackAndOptionsAreClamped() {
+        ChatRequest request = new ChatRequest("我想修改收货地址");
+        request.setModel("unknown-model");
+        request.setTemperature(5f);
+        request.setMaxTokens(100000);
+
+        ModelRoute route = router.route(request);
+        assertEquals("big-model", route.getModel());
+        assertEquals(ModelRoute.Reason.DEFAULT, route.getReason());
+        assertEquals(2.0, route.getTemperature(), 1e-9);
+        assertEquals(4000, route.getMaxTokens());
+    }
+
+    @Test
+    void testSimpleIntentsUseFastModel() {
+        assertEquals("small-model", router.route(new ChatRequest("谢谢！")).getModel());
+        assertEquals("big-model", router.route(new ChatRequest("谢谢，另外我的订单为什么还没有发货，已经等了一周了")).getModel());
+        assertEquals(1.0, meterRegistry.get("smartcustom.model.routes")
+                .tag("model", "small-model").tag("reason", "fast").counter().count());
+    }
+
+    @Test
+    void testRequestedModelWinsOverFastRoute() {
+        ChatRequest request = new ChatRequest("谢谢！");
+        request.setModel("qwen-plus");
+
+        ModelRoute route = router.route(request);
+        assertEquals("qwen-plus", route.getModel());
+        assertEquals(ModelRoute.Reason.REQUESTED, route.getReason());
+    }
+
+    @Test
+    void testMaxTokensAreRoundedToSteps() {
+        ChatRequest request = new ChatRequest("我想修改收货地址");
+        request.setMaxTokens(300);
+        ModelRoute first = router.route(request);
+        request.setMaxTokens(500);
+        ModelRoute second = router.route(request);
+
+        assertEquals(512, first.getMaxTokens());
+        assertSame(first.getChatClient(), second.getChatClient());
+        assertEquals(1, router.getPoolSize());
+    }
+
+    @Test
+    void testClientsArePooledPerProfile() {
+        ChatRequest request = new ChatRequest("我想修改收货地址");
+        ModelRoute first = router.route(request);
+        ModelRoute second = router.route(new ChatRequest("发票怎么开"));
+        assertSame(first.getChatClient(), second.getChatClient());
+
+        request.setMaxTokens(200);
+        assertNotSame(first.getChatClient(), router.route(request).getChatClient());
+        assertEquals(2, router.getPoolSize());
+
+        properties.getRouting().setMaxClients(2);
+        request.setMaxTokens(1000);
+        assertNotNull(router.route(request).getChatClient());
+        assertEquals(2, router.getPoolSize());
+
+        // 每个客户端都从自动配置的构建器取新实例
+        verify(chatClientBuilders, times(3)).getObject();
+    }
+
+    @Test
+    void testDisabledRoutingReturnsNull() {
+        properties.getRouting().setEnabled(false);
+        assertNull(router.route(new ChatRequest("你好")));
+    }
+}
@@ -0,0 +1,142 @@
+package com.smartcustom.tool;
+
+import com.smartcustom.config.SmartCustomProperties;
+import com.smartcustom.service.impl.ToolManagerImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.model.function.FunctionCallback;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolResultCacheTest {
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private ToolManagerImpl toolManager;
+    private CountingOrderTool orderTool;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        meterRegistry = new SimpleMeterRegistry();
+        orderTool = new CountingOrderTool();
+        toolManager = new ToolManagerImpl();
+        toolManager.setResultCache(new ToolResultCache(new SmartCustomProperties(), meterRegistry, executor));
+        toolManager.registerTool(orderTool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCallWaitsForPrefetchInsteadOfExecutingAgain() throws Exception {
+        ToolPrefetcher prefetcher = new ToolPrefetcher(toolManager, new SmartCustomProperties());
+
+        assertEquals(1, prefetcher.prefetch("帮我查下ord202311001到哪了", List.of(ToolPrefetcher.ORDER_TOOL)));
+        assertTrue(orderTool.started.await(5, TimeUnit.SECONDS));
+
+        orderTool.release.countDown();
+        ToolResult result = toolManager.executeTool("order-query", Map.of("order_id", "ORD202311001"));
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, orderTool.executions.get());
+        assertEquals(1.0, meterRegistry.get("smartcustom.tool.cache").tag("result", "prefetch").counter().count());
+        assertEquals(1.0, meterRegistry.get("smartcustom.tool.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testModelFunctionCallUsesPrefetchedResult() throws Exception {
+        ToolPrefetcher prefetcher = new ToolPrefetcher(toolManager, new SmartCustomProperties());
+        List<String> tools = List.of(ToolPrefetcher.ORDER_TOOL);
+
+        assertEquals(1, prefetcher.prefetch("订单ORD202311001到哪了", tools));
+        assertTrue(orderTool.started.await(5, TimeUnit.SECONDS));
+        orderTool.release.countDown();
+
+        FunctionCallback callback = toolManager.getFunctionCallbacks(tools).get(0);
+        String output = callback.call("{\"order_id\":\"ORD202311001\"}");
+
+        assertTrue(output.contains("已发货"));
+        assertEquals(1, orderTool.executions.get());
+        assertEquals(1.0, meterRegistry.get("smartcustom.tool.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testPrefetchOnlyForAvailableTools() {
+        ToolPrefetcher prefetcher = new ToolPrefetcher(toolManager, new SmartCustomProperties());
+
+        assertEquals(0, prefetcher.prefetch("订单ORD202311001到哪了", List.of(ToolPrefetcher.REFUND_TOOL)));
+        assertEquals(0, prefetcher.prefetch("你好", List.of(ToolPrefetcher.ORDER_TOOL)));
+        assertEquals(0, orderTool.executions.get());
+    }
+
+    @Test
+    void testFailedResultsAreNotCached() {
+        orderTool.release.countDown();
+
+        assertFalse(toolManager.executeTool("order-query", Map.of("order_id", "MISSING")).isSuccess());
+        assertFalse(toolManager.executeTool("order-query", Map.of("order_id", "MISSING")).isSuccess());
+
+        assertEquals(2, orderTool.executions.get());
+    }
+
+    @Test
+    void testDisablingToolClearsResults() {
+        orderTool.release.countDown();
+        Map<String, Object> parameters = Map.of("order_id", "ORD202311001");
+
+        toolManager.executeTool("order-query", parameters);
+        toolManager.executeTool("order-query", parameters);
+        assertEquals(1, orderTool.executions.get());
+
+        toolManager.disableTool("order-query");
+        toolManager.enableTool("order-query");
+        toolManager.executeTool("order-query", parameters);
+        assertEquals(2, orderTool.executions.get());
+    }
+
+    /**
+     * 等待放行后才返回结果的订单查询工具
+     */
+    private static class CountingOrderTool extends AbstractTool {
+
+        private final AtomicInteger executions = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        CountingOrderTool() {
+            super(ToolPrefetcher.ORDER_TOOL, "订单查询");
+        }
+
+        @Override
+        public boolean isCacheable(Map<String, Object> parameters) {
+            return true;
+        }
+
+        @Override
+        protected ToolResult doExecute(Map<String, Object> parameters) {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "ORD202311001".equals(parameters.get("order_id"))
+                    ? ToolResult.success("查询成功", Map.of("status_description", "已发货"))
+                    : ToolResult.error("订单不存在");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.smartcustom.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    @Test
+    void testIdsAreMonotonic() {
+        IdGenerator generator = new IdGenerator(1);
+        long previous = generator.nextId();
+        for (int i = 0; i < 100000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void testCompactIdsSortLikeLongIds() {
+        IdGenerator generator = new IdGenerator(1);
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        String firstCompact = IdGenerator.toCompactString(first);
+        String secondCompact = IdGenerator.toCompactString(second);
+
+        assertEquals(13, firstCompact.length());
+        assertTrue(firstCompact.compareTo(secondCompact) < 0);
+    }
+
+    @Test
+    void testCompactStringRoundTrip() {
+        long id = new IdGenerator(5).nextId();
+
+        assertEquals(id, IdGenerator.fromCompactString(IdGenerator.toCompactString(id)));
+        assertThrows(IllegalArgumentException.class, () -> IdGenerator.fromCompactString("not-an-id"));
+        assertThrows(IllegalArgumentException.class, () -> IdGenerator.fromCompactString("ZZZZZZZZZZZZZ"));
+    }
+
+    @Test
+    void testExtractTimestamp() {
+        long before = System.currentTimeMillis();
+        long id = new IdGenerator(1).nextId();
+        long after = System.currentTimeMillis();
+
+        long timestamp = IdGenerator.extractTimestamp(id);
+        assertTrue(timestamp >= before && timestamp <= after + 1);
+    }
+
+    @Test
+    void testConcurrentIdsAreUnique() throws InterruptedException {
+        IdGenerator generator = new IdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, ids.size());
+    }
+
+    @Test
+    void testInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(1024));
+    }
+
+    @Test
+    void testConfiguredNodeId() {
+        assertEquals(7, IdGenerator.resolveNodeId(" 7 "));
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> IdGenerator.resolveNodeId("node-a"));
+        assertTrue(e.getMessage().contains("smartcustom.node-id"));
+    }
+}